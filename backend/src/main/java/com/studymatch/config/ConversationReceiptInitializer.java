@@ -0,0 +1,164 @@
+package com.studymatch.config;
+
+import com.studymatch.model.ConversationReceipt;
+import com.studymatch.repository.ConversationReceiptRepository;
+import com.studymatch.repository.ConversationRepository;
+import com.studymatch.repository.UserRepository;
+import com.studymatch.service.AppSettingsService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One-time migration that turns the legacy per-message is_read/status columns
+ * into per-participant conversation receipt watermarks, then gives every remaining
+ * participant an empty receipt, since receipts are now created with the conversation.
+ * Runs after startup, after messages have sequence numbers, and records each step's
+ * completion in app settings; a failed step is retried on the next startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationReceiptInitializer {
+
+    static final String RECEIPTS_BACKFILLED = "chat.receiptSeqBackfilled";
+    static final String RECEIPTS_CREATED = "chat.participantReceiptsCreated";
+
+    private static final String LEGACY_WATERMARK_QUERY =
+        "SELECT cp.conversation_id, cp.user_id, " +
+        "MAX(CASE WHEN m.status IN ('DELIVERED', 'READ') OR m.is_read = TRUE THEN m.seq END), " +
+        "MAX(CASE WHEN m.is_read = TRUE THEN m.seq END), " +
+        "MAX(m.delivered_at), MAX(m.read_at) " +
+        "FROM conversation_participants cp " +
+        "JOIN messages m ON m.conversation_id = cp.conversation_id AND m.sender_id <> cp.user_id " +
+        "GROUP BY cp.conversation_id, cp.user_id";
+
+    private static final String LEGACY_COLUMNS_QUERY =
+        "SELECT COUNT(*) FROM information_schema.columns WHERE LOWER(table_name) = 'messages' " +
+        "AND LOWER(column_name) IN ('status', 'is_read', 'delivered_at', 'read_at')";
+
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ConversationReceiptRepository receiptRepository;
+    private final ConversationRepository conversationRepository;
+    private final UserRepository userRepository;
+    private final AppSettingsService appSettingsService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void onApplicationReady() {
+        backfillLegacyWatermarks();
+        createMissingReceipts();
+    }
+
+    private void backfillLegacyWatermarks() {
+        if (appSettingsService.getBoolean(RECEIPTS_BACKFILLED, false)) {
+            return;
+        }
+
+        // Fresh schemas never had the legacy columns, so there is nothing to migrate
+        if (!hasLegacyColumns()) {
+            appSettingsService.set(RECEIPTS_BACKFILLED, true);
+            return;
+        }
+
+        try {
+            Integer created = new TransactionTemplate(transactionManager).execute(status -> backfill());
+            log.info("Backfilled {} conversation receipts from legacy message status columns", created);
+            appSettingsService.set(RECEIPTS_BACKFILLED, true);
+        } catch (Exception e) {
+            log.warn("Conversation receipt backfill failed, will retry on next startup: {}", e.getMessage());
+        }
+    }
+
+    // Runs after the backfill so legacy watermarks are not overwritten by empty receipts
+    private void createMissingReceipts() {
+        if (appSettingsService.getBoolean(RECEIPTS_CREATED, false)) {
+            return;
+        }
+
+        try {
+            Integer created = new TransactionTemplate(transactionManager).execute(status -> {
+                List<Object[]> missing = receiptRepository.findParticipantsWithoutReceipt();
+                receiptRepository.saveAll(missing.stream()
+                    .map(row -> ConversationReceipt.builder()
+                        .conversation(conversationRepository.getReferenceById((UUID) row[0]))
+                        .user(userRepository.getReferenceById((UUID) row[1]))
+                        .build())
+                    .toList());
+                return missing.size();
+            });
+            if (created > 0) {
+                log.info("Created {} missing conversation receipts", created);
+            }
+            appSettingsService.set(RECEIPTS_CREATED, true);
+        } catch (Exception e) {
+            log.warn("Creating missing conversation receipts failed, will retry on next startup: {}", e.getMessage());
+        }
+    }
+
+    private boolean hasLegacyColumns() {
+        Number columns = (Number) entityManager.createNativeQuery(LEGACY_COLUMNS_QUERY).getSingleResult();
+        return columns.intValue() == 4;
+    }
+
+    private int backfill() {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(LEGACY_WATERMARK_QUERY).getResultList();
+
+        int created = 0;
+        for (Object[] row : rows) {
+            UUID conversationId = (UUID) row[0];
+            UUID userId = (UUID) row[1];
+            Long deliveredSeq = toLong(row[2]);
+            Long readSeq = toLong(row[3]);
+            if (deliveredSeq == null && readSeq == null) {
+                continue;
+            }
+
+            // Receipts written before watermarks were sequence based only need their numbers filled in
+            ConversationReceipt receipt = receiptRepository.findByConversationIdAndUserId(conversationId, userId)
+                .orElseGet(() -> ConversationReceipt.builder()
+                    .conversation(conversationRepository.getReferenceById(conversationId))
+                    .user(userRepository.getReferenceById(userId))
+                    .deliveredAt(toLocalDateTime(row[4]))
+                    .readAt(toLocalDateTime(row[5]))
+                    .build());
+            if (receipt.getDeliveredSeq() != null || receipt.getReadSeq() != null) {
+                continue;
+            }
+
+            receipt.setDeliveredSeq(deliveredSeq);
+            receipt.setReadSeq(readSeq);
+            if (receipt.getDeliveredAt() == null && receipt.getReadAt() == null) {
+                receipt.setDeliveredAt(toLocalDateTime(row[4]));
+                receipt.setReadAt(toLocalDateTime(row[5]));
+            }
+            receiptRepository.save(receipt);
+            created++;
+        }
+        return created;
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,52 @@
+package com.studymatch.config;
+
+import com.studymatch.repository.MessageRepository;
+import com.studymatch.service.AppSettingsService;
+import com.studymatch.service.ChatService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One-time migration that numbers messages stored before per-conversation
+ * sequence numbers existed, in sentAt order.
+ * Runs before the receipt backfill, which derives watermarks from these numbers.
+ * The web server is already up by then; a message sent to a conversation that has
+ * not been numbered yet numbers its history first (see ChatService.sequenceHistory).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MessageSequenceInitializer {
+
+    static final String MESSAGE_SEQ_BACKFILLED = "chat.messageSeqBackfilled";
+
+    private final MessageRepository messageRepository;
+    private final ChatService chatService;
+    private final AppSettingsService appSettingsService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void onApplicationReady() {
+        if (appSettingsService.getBoolean(MESSAGE_SEQ_BACKFILLED, false)) {
+            return;
+        }
+
+        List<UUID> conversationIds = messageRepository.findConversationIdsWithUnsequencedMessages();
+        for (UUID conversationId : conversationIds) {
+            // One transaction per conversation keeps each counter row locked only briefly
+            chatService.sequenceHistory(conversationId);
+        }
+
+        if (!conversationIds.isEmpty()) {
+            log.info("Assigned message sequence numbers in {} conversations", conversationIds.size());
+        }
+        appSettingsService.set(MESSAGE_SEQ_BACKFILLED, true);
+    }
+}
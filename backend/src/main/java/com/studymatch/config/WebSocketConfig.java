@@ -1,34 +1,49 @@
 package com.studymatch.config;
 
+import com.studymatch.repository.UserRepository;
 import com.studymatch.security.JwtService;
+import com.studymatch.websocket.SlowConsumerMetrics;
+import com.studymatch.websocket.StompUser;
+import com.studymatch.websocket.StompUserArgumentResolver;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSocketMessageBroker
 @RequiredArgsConstructor
+@Slf4j
 @Order(Ordered.HIGHEST_PRECEDENCE + 99)
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserRepository userRepository;
+    private final WebSocketProperties properties;
+    private final SlowConsumerMetrics slowConsumerMetrics;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
@@ -39,13 +54,35 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        String[] allowedOrigins = {"http://localhost:5173", "http://localhost:5174", "http://localhost:3000"};
+
+        // Plain WebSocket for clients that support it: no SockJS framing or HTTP fallback round trips.
+        // The servlet container negotiates permessage-deflate when the browser offers it.
+        registry.addEndpoint("/ws-native")
+            .setAllowedOrigins(allowedOrigins);
+
         registry.addEndpoint("/ws")
-            .setAllowedOrigins("http://localhost:5173", "http://localhost:5174", "http://localhost:3000")
+            .setAllowedOrigins(allowedOrigins)
             .withSockJS();
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration
+            .setSendTimeLimit(properties.getSendTimeLimitMs())
+            .setSendBufferSizeLimit(properties.getSendBufferSizeLimitBytes())
+            .setMessageSizeLimit(properties.getMessageSizeLimitBytes())
+            .addDecoratorFactory(slowConsumerMetrics);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutor("clientOutboundChannel", properties.getOutbound()));
+    }
+
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutor("clientInboundChannel", properties.getInbound()));
         registration.interceptors(new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -68,8 +105,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                                         null,
                                         userDetails.getAuthorities()
                                     );
-                                SecurityContextHolder.getContext().setAuthentication(authentication);
+                                // Only the session gets the principal: broker threads are shared
+                                // between connections, so a thread-local SecurityContext would leak
                                 accessor.setUser(authentication);
+
+                                // Resolve the user once per connection; handlers read it from the session
+                                Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+                                if (sessionAttributes != null) {
+                                    userRepository.findByEmail(username).ifPresent(user ->
+                                        sessionAttributes.put(StompUser.SESSION_ATTRIBUTE, StompUser.of(user)));
+                                }
                             }
                         }
                     }
@@ -79,5 +124,27 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             }
         });
     }
-}
 
+    // Spring keeps these pool settings but applies its own thread name prefix per channel
+    private ThreadPoolTaskExecutor channelExecutor(String channelName, WebSocketProperties.ChannelPool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getCorePoolSize());
+        executor.setMaxPoolSize(pool.getMaxPoolSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setKeepAliveSeconds(pool.getKeepAliveSeconds());
+        executor.setAllowCoreThreadTimeOut(true);
+        if (properties.isVirtualThreads()) {
+            try {
+                executor.setThreadFactory(new VirtualThreadTaskExecutor(channelName + "-").getVirtualThreadFactory());
+            } catch (UnsupportedOperationException e) {
+                log.warn("Virtual threads are not available on this JVM, using platform threads for {}", channelName);
+            }
+        }
+        return executor;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> argumentResolvers) {
+        argumentResolvers.add(new StompUserArgumentResolver());
+    }
+}
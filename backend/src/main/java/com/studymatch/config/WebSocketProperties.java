@@ -0,0 +1,39 @@
+package com.studymatch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tuning for the STOMP message channels and the per-session send path.
+ *
+ * Outbound frames for a session are buffered up to the send buffer limit; a client
+ * that stays behind for longer than the send time limit or overflows the buffer is
+ * disconnected instead of holding up the outbound channel threads.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.websocket")
+@Getter
+@Setter
+public class WebSocketProperties {
+
+    private ChannelPool inbound = new ChannelPool();
+    private ChannelPool outbound = new ChannelPool();
+
+    private int sendTimeLimitMs = 10_000;
+    private int sendBufferSizeLimitBytes = 512 * 1024;
+    private int messageSizeLimitBytes = 64 * 1024;
+
+    // Run channel tasks on virtual threads; needs a Java 21+ runtime, ignored otherwise
+    private boolean virtualThreads = false;
+
+    @Getter
+    @Setter
+    public static class ChannelPool {
+        private int corePoolSize = 8;
+        private int maxPoolSize = 32;
+        private int queueCapacity = 10_000;
+        private int keepAliveSeconds = 60;
+    }
+}
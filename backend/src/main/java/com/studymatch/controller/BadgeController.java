@@ -37,10 +37,15 @@ public class BadgeController {
         return ResponseEntity.ok(badgeService.getUnseenBadges(currentUser));
     }
 
+    // Without a body every unseen badge is marked
     @PostMapping("/mark-seen")
-    public ResponseEntity<Void> markBadgesAsSeen() {
+    public ResponseEntity<Void> markBadgesAsSeen(@RequestBody(required = false) BadgeDto.MarkSeenRequest request) {
         User currentUser = userService.getCurrentUser();
-        badgeService.markBadgesAsSeen(currentUser);
+        if (request == null) {
+            badgeService.markBadgesAsSeen(currentUser);
+        } else {
+            badgeService.markBadgesAsSeen(currentUser, request);
+        }
         return ResponseEntity.ok().build();
     }
 
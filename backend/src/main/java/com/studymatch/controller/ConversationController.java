@@ -36,6 +36,14 @@ public class ConversationController {
         return ResponseEntity.ok(chatService.getMessages(conversationId, page));
     }
 
+    @GetMapping(value = "/{conversationId}/messages", params = "afterSeq")
+    public ResponseEntity<List<MessageDto>> getMessagesAfter(
+        @PathVariable UUID conversationId,
+        @RequestParam long afterSeq
+    ) {
+        return ResponseEntity.ok(chatService.getMessagesAfter(conversationId, afterSeq));
+    }
+
     @PostMapping("/{conversationId}/messages")
     public ResponseEntity<MessageDto> sendMessage(
         @PathVariable UUID conversationId,
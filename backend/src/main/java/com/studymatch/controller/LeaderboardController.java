@@ -1,21 +1,42 @@
 package com.studymatch.controller;
 
 import com.studymatch.dto.LeaderboardDto;
+import com.studymatch.service.LeaderboardRankingService;
 import com.studymatch.service.LeaderboardService;
+import com.studymatch.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.ZoneId;
+import java.util.UUID;
+
 @RestController
 @RequestMapping("/api/leaderboard")
 @RequiredArgsConstructor
 public class LeaderboardController {
 
     private final LeaderboardService leaderboardService;
+    private final LeaderboardRankingService rankingService;
+    private final UserService userService;
 
+    // Serves the snapshot's pre-serialized JSON as is
     @GetMapping
-    public ResponseEntity<LeaderboardDto> getLeaderboard() {
-        return ResponseEntity.ok(leaderboardService.getLeaderboard());
+    public ResponseEntity<byte[]> getLeaderboard() {
+        LeaderboardService.Snapshot snapshot = leaderboardService.getSnapshot();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .lastModified(snapshot.computedAt().atZone(ZoneId.systemDefault()))
+                .body(snapshot.json());
     }
-}
 
+    // The current user's live rank in one category, with the users around them
+    @GetMapping("/rank")
+    public ResponseEntity<LeaderboardDto.UserRank> getRank(
+            @RequestParam(defaultValue = "STUDY_MINUTES") LeaderboardRankingService.Category category,
+            @RequestParam(defaultValue = "2") int neighbors) {
+        UUID userId = userService.getCurrentUser().getId();
+        return ResponseEntity.ok(rankingService.getRank(userId, category, neighbors));
+    }
+}
@@ -35,6 +35,12 @@ public class NotificationController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/read")
+    public ResponseEntity<Void> markBatchAsRead(@RequestBody NotificationDto.MarkReadRequest request) {
+        notificationService.markAsRead(request);
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping("/read-all")
     public ResponseEntity<Void> markAllAsRead() {
         notificationService.markAllAsRead();
@@ -0,0 +1,21 @@
+package com.studymatch.controller;
+
+import com.studymatch.dto.SyncDto;
+import com.studymatch.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+
+    // POST because the cursor grows with the number of conversations
+    @PostMapping
+    public ResponseEntity<SyncDto> sync(@RequestBody(required = false) SyncDto.Request request) {
+        return ResponseEntity.ok(syncService.sync(request != null ? request.getCursor() : null));
+    }
+}
@@ -54,5 +54,15 @@ public class BadgeDto {
         private String description;
         private LocalDateTime earnedAt;
     }
+
+    // Either specific badges (by badge id, as in NewBadgeNotification) or everything earned up to a watermark
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class MarkSeenRequest {
+        private List<UUID> badgeIds;
+        private LocalDateTime upTo;
+    }
 }
 
@@ -0,0 +1,27 @@
+package com.studymatch.dto;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A high-frequency WebSocket event that also has a short-key form for clients that
+ * negotiated compact frames. UUIDs in the compact form are 22-character base64url strings.
+ */
+public interface CompactFrame {
+
+    Object toCompact();
+
+    static String encode(UUID id) {
+        ByteBuffer buffer = ByteBuffer.allocate(16)
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    static List<String> encode(Collection<UUID> ids) {
+        return ids.stream().map(CompactFrame::encode).toList();
+    }
+}
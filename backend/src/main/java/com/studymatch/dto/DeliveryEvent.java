@@ -0,0 +1,31 @@
+package com.studymatch.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tells a sender that their messages up to a sequence number reached the recipient.
+ */
+public record DeliveryEvent(
+    List<UUID> messageIds,
+    UUID conversationId,
+    String status,
+    LocalDateTime deliveredAt,
+    Long deliveredUpToSeq
+) implements CompactFrame {
+
+    // Status is implied by the destination; the timestamp is epoch milliseconds
+    public record Compact(String c, List<String> m, Long s, long at) {}
+
+    @Override
+    public Compact toCompact() {
+        return new Compact(
+            CompactFrame.encode(conversationId),
+            CompactFrame.encode(messageIds),
+            deliveredUpToSeq,
+            deliveredAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+        );
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,6 +22,9 @@ public class LeaderboardDto {
     private List<LeaderboardEntry> mostStudyPartners;
     private List<LeaderboardEntry> risingStars;
     
+    private LocalDateTime computedAt; // When this snapshot was computed
+    private Long refreshIntervalMs; // How often snapshots are recomputed
+    
     @Data
     @Builder
     @AllArgsConstructor
@@ -34,5 +38,18 @@ public class LeaderboardDto {
         private String label; // Custom label like "7 days", "12 hours", etc.
         private List<String> subjects; // Optional: show user's subjects
     }
+    
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class UserRank {
+        private String category;
+        private Integer rank; // Null when the user has nothing to rank in this category yet
+        private Long value;
+        private String label;
+        private Integer totalRanked;
+        private List<LeaderboardEntry> neighbors; // The user and those just above and below
+    }
 }
 
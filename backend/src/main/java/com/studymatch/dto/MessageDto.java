@@ -15,6 +15,7 @@ import java.util.UUID;
 public class MessageDto {
     private UUID id;
     private UUID conversationId;
+    private Long seq;           // Per-conversation sequence number for gap detection and resumable sync
     private UUID senderId;
     private String senderRole;  // USER or ADMIN - for showing verified badge
     private String content;
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Data
@@ -19,5 +20,16 @@ public class NotificationDto {
     private String link;
     private Boolean read;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;  // Last change (coalesced message, marked read), used for sync
+
+    // Either specific notifications or everything last updated up to a watermark (the newest updatedAt shown)
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class MarkReadRequest {
+        private List<UUID> ids;
+        private LocalDateTime upTo;
+    }
 }
 
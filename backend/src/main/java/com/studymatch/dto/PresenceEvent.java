@@ -0,0 +1,17 @@
+package com.studymatch.dto;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Presence diff for one recipient: users that came online or went offline since the last frame.
+ */
+public record PresenceEvent(Collection<UUID> online, Collection<UUID> offline) implements CompactFrame {
+
+    public record Compact(Collection<String> on, Collection<String> off) {}
+
+    @Override
+    public Compact toCompact() {
+        return new Compact(CompactFrame.encode(online), CompactFrame.encode(offline));
+    }
+}
@@ -0,0 +1,40 @@
+package com.studymatch.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncDto {
+    private List<MessageDto> messages;             // New messages, oldest first within each conversation
+    private List<ReceiptChange> receipts;          // Delivery/read watermarks that moved
+    private List<NotificationDto> notifications;   // Created or changed notifications
+    private String cursor;                         // Opaque; send it with the next sync
+    private Boolean hasMore;                       // More changes are waiting, sync again right away
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ReceiptChange {
+        private UUID conversationId;
+        private UUID userId;
+        private Long deliveredSeq;
+        private Long readSeq;
+        private LocalDateTime deliveredAt;
+        private LocalDateTime readAt;
+    }
+
+    @Data
+    public static class Request {
+        private String cursor;  // Omit on first sync to get a cursor for the current state
+    }
+}
@@ -0,0 +1,16 @@
+package com.studymatch.dto;
+
+import java.util.UUID;
+
+/**
+ * Typing indicator sent to the other participants of a conversation.
+ */
+public record TypingEvent(UUID conversationId, UUID userId, boolean isTyping) implements CompactFrame {
+
+    public record Compact(String c, String u, int t) {}
+
+    @Override
+    public Compact toCompact() {
+        return new Compact(CompactFrame.encode(conversationId), CompactFrame.encode(userId), isTyping ? 1 : 0);
+    }
+}
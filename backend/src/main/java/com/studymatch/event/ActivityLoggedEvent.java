@@ -0,0 +1,9 @@
+package com.studymatch.event;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Published when a user logs study time.
+ */
+public record ActivityLoggedEvent(UUID userId, LocalDate activityDate, int studyMinutes) {}
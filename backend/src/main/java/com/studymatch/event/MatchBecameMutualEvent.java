@@ -0,0 +1,8 @@
+package com.studymatch.event;
+
+import java.util.UUID;
+
+/**
+ * Published when a match request is accepted and both users become study partners.
+ */
+public record MatchBecameMutualEvent(UUID matchId, UUID user1Id, UUID user2Id) {}
@@ -0,0 +1,9 @@
+package com.studymatch.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published when a study session is marked COMPLETED, once per session.
+ */
+public record SessionCompletedEvent(UUID sessionId, Set<UUID> participantIds) {}
@@ -33,10 +33,15 @@ public class Conversation {
     private List<User> participants = new ArrayList<>();
 
     @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL)
-    @OrderBy("sentAt DESC")
+    @OrderBy("seq DESC")
     @Builder.Default
     private List<Message> messages = new ArrayList<>();
 
+    // Highest message sequence number handed out so far; only set by the counter
+    // updates in ConversationRepository so entity saves never rewind it
+    @Column(updatable = false)
+    private Long lastMessageSeq;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "study_group_id")
     private StudyGroup studyGroup;
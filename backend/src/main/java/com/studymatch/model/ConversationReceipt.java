@@ -0,0 +1,51 @@
+package com.studymatch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Per-participant delivery/read watermark for a conversation.
+ * Every message from another participant with a sequence number at or below
+ * a watermark counts as delivered/read, so receipts never rewrite message rows.
+ */
+@Entity
+@Table(name = "conversation_receipts", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"conversation_id", "user_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationReceipt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "conversation_id", nullable = false)
+    private Conversation conversation;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // Messages with seq at or below this value have reached the participant's device
+    private Long deliveredSeq;
+
+    // Messages with seq at or below this value have been read by the participant
+    private Long readSeq;
+
+    // When each watermark last advanced (reported as deliveredAt/readAt on messages)
+    private LocalDateTime deliveredAt;
+
+    private LocalDateTime readAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_messages_conversation_seq", columnNames = {"conversation_id", "seq"})
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -31,23 +33,13 @@ public class Message {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String content;
 
-    @Builder.Default
-    private Boolean isRead = false;
-    
-    // Message delivery status: SENDING -> SENT -> DELIVERED -> READ
-    @Enumerated(EnumType.STRING)
-    @Builder.Default
-    private MessageStatus status = MessageStatus.SENT;
-    
-    // Timestamp when message was delivered to recipient's device
-    private LocalDateTime deliveredAt;
-    
-    // Timestamp when message was read by recipient
-    private LocalDateTime readAt;
+    // Monotonic per-conversation sequence number (1, 2, 3, ...) used for ordering and gap detection
+    private Long seq;
 
     @CreationTimestamp
     private LocalDateTime sentAt;
     
+    // Delivery status is derived from ConversationReceipt watermarks: SENDING -> SENT -> DELIVERED -> READ
     public enum MessageStatus {
         SENDING,   // Message is being sent (client-side only)
         SENT,      // Message saved to server
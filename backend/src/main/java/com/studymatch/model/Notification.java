@@ -3,6 +3,7 @@ package com.studymatch.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -36,9 +37,16 @@ public class Notification {
     @Builder.Default
     private Boolean read = false;
 
+    // Number of events folded into this notification (e.g. a burst of chat messages)
+    @Builder.Default
+    private Integer coalescedCount = 1;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
     public enum NotificationType {
         MESSAGE,
         MATCH,
@@ -0,0 +1,70 @@
+package com.studymatch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Running per-user totals behind badges, dashboard stats and leaderboards.
+ * Counters are adjusted in place as activities, sessions and matches change, and a nightly
+ * job compares them with the source tables. Completed sessions are a lifetime count: finished
+ * sessions are deleted once they expire, so the counter keeps history the table no longer has.
+ * The activity days themselves are kept as a bitmap (see ActivityDays), which streaks and the
+ * day counters are read from.
+ */
+@Entity
+@Table(name = "user_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserStats {
+
+    @Id
+    private UUID userId;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Long totalMinutes = 0L;
+
+    // Days with at least one logged activity
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer activeDays = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer weekendDays = 0;
+
+    // Activity days whose start time was before 8 AM / after 10 PM
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer earlyBirdDays = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer nightOwlDays = 0;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer completedSessions = 0;
+
+    // Mutual matches
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer partnerCount = 0;
+
+    // First day of the activity bitmap; both are null on rows written before the bitmap existed
+    private LocalDate activityDaysFrom;
+
+    @Column(length = 4096)
+    private byte[] activityDays;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime reconciledAt;
+}
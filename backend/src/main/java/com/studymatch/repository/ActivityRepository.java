@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -26,17 +27,17 @@ public interface ActivityRepository extends JpaRepository<Activity, UUID> {
     
     @Query("SELECT a FROM Activity a WHERE a.user.id = :userId ORDER BY a.activityDate DESC")
     List<Activity> findRecentActivities(UUID userId);
+
+    @Query("SELECT a.activityDate FROM Activity a WHERE a.user.id = :userId")
+    List<LocalDate> findActivityDates(UUID userId);
     
-    // Leaderboard: Top study hours this week
-    @Query("SELECT a.user.id, SUM(a.studyMinutes) as total FROM Activity a WHERE a.activityDate BETWEEN :startDate AND :endDate GROUP BY a.user.id ORDER BY total DESC")
-    List<Object[]> findTopStudyMinutesThisWeek(LocalDate startDate, LocalDate endDate);
-    
-    // Leaderboard: Most days active (all time)
-    @Query("SELECT a.user.id, COUNT(DISTINCT a.activityDate) as days FROM Activity a GROUP BY a.user.id ORDER BY days DESC")
-    List<Object[]> findMostDaysActive();
-    
-    // Leaderboard: Rising stars - study minutes by user in a date range
-    @Query("SELECT a.user.id, COALESCE(SUM(a.studyMinutes), 0) FROM Activity a WHERE a.activityDate BETWEEN :startDate AND :endDate GROUP BY a.user.id")
-    List<Object[]> findStudyMinutesByDateRange(LocalDate startDate, LocalDate endDate);
+    // Leaderboard: per-day minutes for the recent window kept in memory
+    @Query("SELECT a.user.id, a.activityDate, a.studyMinutes FROM Activity a " +
+           "WHERE a.activityDate >= :since AND a.studyMinutes > 0")
+    List<Object[]> findDailyMinutesSince(LocalDate since);
+
+    @Query("SELECT a.user.id, a.activityDate, a.studyMinutes FROM Activity a " +
+           "WHERE a.user.id IN :userIds AND a.activityDate >= :since AND a.studyMinutes > 0")
+    List<Object[]> findDailyMinutesSince(LocalDate since, Collection<UUID> userIds);
 }
 
@@ -0,0 +1,51 @@
+package com.studymatch.repository;
+
+import com.studymatch.model.ConversationReceipt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ConversationReceiptRepository extends JpaRepository<ConversationReceipt, UUID> {
+
+    @Query("SELECT r FROM ConversationReceipt r WHERE r.conversation.id = :conversationId AND r.user.id = :userId")
+    Optional<ConversationReceipt> findByConversationIdAndUserId(UUID conversationId, UUID userId);
+
+    @Query("SELECT r.deliveredSeq FROM ConversationReceipt r WHERE r.conversation.id = :conversationId AND r.user.id = :userId")
+    Optional<Long> findDeliveredSeq(UUID conversationId, UUID userId);
+
+    // Participants of conversations created before receipts were made up front, as (conversationId, userId)
+    @Query("SELECT c.id, p.id FROM Conversation c JOIN c.participants p WHERE NOT EXISTS " +
+           "(SELECT r.id FROM ConversationReceipt r WHERE r.conversation.id = c.id AND r.user.id = p.id)")
+    List<Object[]> findParticipantsWithoutReceipt();
+
+    // Watermarks only move forward: each is a single conditional UPDATE on the receipt created
+    // with the conversation, so concurrent calls never write back a stale value. 0 rows means
+    // the watermark is already at or past the given seq.
+    // Receipts already loaded in the transaction are dropped so later reads see the new value.
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ConversationReceipt r SET r.readSeq = :seq, r.readAt = :now, r.updatedAt = :now " +
+           "WHERE r.conversation.id = :conversationId AND r.user.id = :userId AND (r.readSeq IS NULL OR r.readSeq < :seq)")
+    int advanceReadSeq(UUID conversationId, UUID userId, long seq, LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ConversationReceipt r SET r.deliveredSeq = :seq, r.deliveredAt = :now, r.updatedAt = :now " +
+           "WHERE r.conversation.id = :conversationId AND r.user.id = :userId AND (r.deliveredSeq IS NULL OR r.deliveredSeq < :seq)")
+    int advanceDeliveredSeq(UUID conversationId, UUID userId, long seq, LocalDateTime now);
+
+    @Query("SELECT r FROM ConversationReceipt r WHERE r.conversation.id IN :conversationIds")
+    List<ConversationReceipt> findByConversationIds(Collection<UUID> conversationIds);
+
+    // Receipts of any participant in the user's conversations that moved since the given time
+    @Query("SELECT r FROM ConversationReceipt r WHERE r.updatedAt > :since AND r.conversation.id IN " +
+           "(SELECT c.id FROM Conversation c JOIN c.participants p WHERE p.id = :userId)")
+    List<ConversationReceipt> findChangedSince(UUID userId, LocalDateTime since);
+}
@@ -3,6 +3,7 @@ package com.studymatch.repository;
 import com.studymatch.model.Conversation;
 import com.studymatch.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -21,5 +22,31 @@ public interface ConversationRepository extends JpaRepository<Conversation, UUID
 
     @Query("SELECT c FROM Conversation c JOIN c.participants p1 JOIN c.participants p2 WHERE p1.id = :userId1 AND p2.id = :userId2 AND SIZE(c.participants) = 2")
     Optional<Conversation> findConversationBetweenUsers(UUID userId1, UUID userId2);
-}
 
+    // Everyone who shares at least one conversation with the user
+    @Query("SELECT DISTINCT p.id FROM Conversation c JOIN c.participants me JOIN c.participants p WHERE me.id = :userId AND p.id <> :userId")
+    List<UUID> findPartnerIds(UUID userId);
+
+    @Query("SELECT p.id FROM Conversation c JOIN c.participants p WHERE c.id = :conversationId")
+    List<UUID> findParticipantIds(UUID conversationId);
+
+    // Row-level UPDATE on the conversation's counter: concurrent senders in the same
+    // conversation queue on that row only, other conversations are unaffected.
+    // Returns 0 while the conversation's history has not been numbered yet.
+    @Modifying
+    @Query("UPDATE Conversation c SET c.lastMessageSeq = c.lastMessageSeq + :count " +
+           "WHERE c.id = :conversationId AND c.lastMessageSeq IS NOT NULL")
+    int reserveMessageSeq(UUID conversationId, long count);
+
+    // Starts the counter of a conversation from before sequence numbers; 0 if it already has one
+    @Modifying
+    @Query("UPDATE Conversation c SET c.lastMessageSeq = 0 WHERE c.id = :conversationId AND c.lastMessageSeq IS NULL")
+    int startMessageSeq(UUID conversationId);
+
+    @Query("SELECT c.lastMessageSeq FROM Conversation c WHERE c.id = :conversationId")
+    Long findLastMessageSeq(UUID conversationId);
+
+    // [conversationId, lastMessageSeq] for every conversation the user is in
+    @Query("SELECT c.id, c.lastMessageSeq FROM Conversation c JOIN c.participants p WHERE p.id = :userId")
+    List<Object[]> findLastMessageSeqsByUserId(UUID userId);
+}
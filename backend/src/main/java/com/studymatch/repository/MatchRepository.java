@@ -18,6 +18,10 @@ public interface MatchRepository extends JpaRepository<Match, UUID> {
            "AND (m.user1.deleted = false OR m.user1.deleted IS NULL) AND (m.user2.deleted = false OR m.user2.deleted IS NULL)")
     List<Match> findMutualMatches(UUID userId);
     
+    @Query("SELECT COUNT(m) FROM Match m WHERE (m.user1.id = :userId OR m.user2.id = :userId) AND m.status = 'MUTUAL' " +
+           "AND (m.user1.deleted = false OR m.user1.deleted IS NULL) AND (m.user2.deleted = false OR m.user2.deleted IS NULL)")
+    int countMutualMatches(UUID userId);
+    
     @Query("SELECT m FROM Match m WHERE m.user1.id = :userId AND m.status = 'PENDING'")
     List<Match> findPendingSuggestions(UUID userId);
     
@@ -46,15 +50,5 @@ public interface MatchRepository extends JpaRepository<Match, UUID> {
            "AND m.declinedAt > :since " +
            "ORDER BY m.declinedAt DESC")
     Optional<Match> findRecentDeclinedMatch(UUID senderId, UUID receiverId, LocalDateTime since);
-    
-    // Leaderboard: Most study partners (mutual matches count per user)
-    @Query("SELECT u.id, COUNT(DISTINCT CASE WHEN m.user1.id = u.id THEN m.user2.id ELSE m.user1.id END) as partnerCount " +
-           "FROM Match m JOIN User u ON (m.user1.id = u.id OR m.user2.id = u.id) " +
-           "WHERE m.status = 'MUTUAL' " +
-           "AND (u.deleted = false OR u.deleted IS NULL) " +
-           "AND (m.user1.deleted = false OR m.user1.deleted IS NULL) " +
-           "AND (m.user2.deleted = false OR m.user2.deleted IS NULL) " +
-           "GROUP BY u.id ORDER BY partnerCount DESC")
-    List<Object[]> findMostStudyPartners();
 }
 
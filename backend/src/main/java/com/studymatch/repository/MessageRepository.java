@@ -15,18 +15,25 @@ import java.util.UUID;
 @Repository
 public interface MessageRepository extends JpaRepository<Message, UUID> {
     
-    Page<Message> findByConversationOrderBySentAtDesc(Conversation conversation, Pageable pageable);
+    Page<Message> findByConversationOrderBySeqDesc(Conversation conversation, Pageable pageable);
     
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.conversation.id = :conversationId AND m.sender.id != :userId AND m.isRead = false")
-    long countUnreadMessages(UUID conversationId, UUID userId);
+    // Resumable sync: everything after the last sequence number the client has seen
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.conversation.id = :conversationId AND m.seq > :afterSeq ORDER BY m.seq ASC")
+    List<Message> findByConversationIdAfterSeq(UUID conversationId, long afterSeq, Pageable pageable);
     
-    @Modifying
-    @Query("UPDATE Message m SET m.isRead = true, m.status = 'READ', m.readAt = CURRENT_TIMESTAMP WHERE m.conversation.id = :conversationId AND m.sender.id != :userId AND m.isRead = false")
-    void markAllAsRead(UUID conversationId, UUID userId);
+    // Unread = messages from others above the user's read watermark (index range count)
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.conversation.id = :conversationId AND m.sender.id != :userId AND m.seq > :readSeq")
+    long countUnreadMessages(UUID conversationId, UUID userId, long readSeq);
     
-    // Find messages that haven't been delivered yet (for the recipient)
-    @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId AND m.sender.id != :recipientId AND (m.status = 'SENT' OR m.status IS NULL)")
-    List<Message> findUndeliveredMessages(UUID conversationId, UUID recipientId);
+    // Messages from others between two delivery watermarks as [messageId, senderId] rows
+    @Query("SELECT m.id, m.sender.id FROM Message m WHERE m.conversation.id = :conversationId AND m.sender.id != :recipientId AND m.seq > :afterSeq AND m.seq <= :upToSeq")
+    List<Object[]> findMessageIdsBetweenSeq(UUID conversationId, UUID recipientId, long afterSeq, long upToSeq);
+
+    @Query("SELECT DISTINCT m.conversation.id FROM Message m WHERE m.seq IS NULL")
+    List<UUID> findConversationIdsWithUnsequencedMessages();
+
+    @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId AND m.seq IS NULL ORDER BY m.sentAt ASC, m.id ASC")
+    List<Message> findUnsequencedMessages(UUID conversationId);
 
     @Modifying
     @Query("DELETE FROM Message m WHERE m.conversation.id = :conversationId")
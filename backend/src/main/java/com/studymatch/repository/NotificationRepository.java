@@ -8,6 +8,10 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -18,8 +22,32 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.read = false")
     long countUnread(UUID userId);
     
+    // Bulk updates skip @UpdateTimestamp, so the timestamp is set here for sync to pick the change up
     @Modifying
-    @Query("UPDATE Notification n SET n.read = true WHERE n.user.id = :userId")
-    void markAllAsRead(UUID userId);
+    @Query("UPDATE Notification n SET n.read = true, n.updatedAt = :now WHERE n.user.id = :userId AND n.read = false")
+    void markAllAsRead(UUID userId, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true, n.updatedAt = :now " +
+           "WHERE n.user.id = :userId AND n.id IN :ids AND n.read = false")
+    int markAsRead(UUID userId, Collection<UUID> ids, LocalDateTime now);
+
+    // Compared on updatedAt: a coalesced notification changed after the client's watermark stays unread
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true, n.updatedAt = :now " +
+           "WHERE n.user.id = :userId AND COALESCE(n.updatedAt, n.createdAt) <= :upTo AND n.read = false")
+    int markAsReadUpTo(UUID userId, LocalDateTime upTo, LocalDateTime now);
+
+    boolean existsByIdAndUserId(UUID id, UUID userId);
+
+    // Keyset over (updatedAt, id) so bounded sync chunks never stall on rows sharing a timestamp
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "AND (n.updatedAt > :since OR (n.updatedAt = :since AND n.id > :afterId)) " +
+           "ORDER BY n.updatedAt, n.id")
+    List<Notification> findChangedAfter(UUID userId, LocalDateTime since, UUID afterId, Pageable pageable);
+    
+    // Most recent unread notification for the same link that is still inside the coalescing window
+    Optional<Notification> findFirstByUserIdAndTypeAndLinkAndReadFalseAndUpdatedAtAfterOrderByUpdatedAtDesc(
+        UUID userId, Notification.NotificationType type, String link, LocalDateTime since);
 }
 
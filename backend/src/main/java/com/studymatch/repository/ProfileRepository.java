@@ -4,9 +4,12 @@ import com.studymatch.model.Profile;
 import com.studymatch.model.User;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,7 +22,30 @@ public interface ProfileRepository extends JpaRepository<Profile, UUID> {
     Optional<Profile> findByUserId(UUID userId);
     
     // Leaderboard: Top streaks
-    @Query("SELECT p FROM Profile p WHERE p.studyStreak > 0 ORDER BY p.studyStreak DESC")
+    @Query("SELECT p FROM Profile p JOIN FETCH p.user WHERE p.studyStreak > 0 ORDER BY p.studyStreak DESC")
     List<Profile> findTopStreaks(Pageable pageable);
+    
+    // Leaderboard rankings: every current streak of an active account
+    @Query("SELECT p.user.id, p.studyStreak FROM Profile p WHERE p.studyStreak > 0 " +
+           "AND (p.user.deleted = false OR p.user.deleted IS NULL)")
+    List<Object[]> findActiveStreaks();
+
+    @Query("SELECT p.user.id, p.studyStreak FROM Profile p WHERE p.user.id IN :userIds AND p.studyStreak > 0 " +
+           "AND (p.user.deleted = false OR p.user.deleted IS NULL)")
+    List<Object[]> findActiveStreaksByUserIdIn(Collection<UUID> userIds);
+
+    // Streaks with no activity on or after the given day, which have therefore ended
+    @Query("SELECT p.user.id FROM Profile p WHERE p.studyStreak > 0 AND NOT EXISTS " +
+           "(SELECT a.id FROM Activity a WHERE a.user.id = p.user.id AND a.activityDate >= :since)")
+    List<UUID> findEndedStreakUserIds(LocalDate since, Pageable pageable);
+
+    // Checks again for activity, which may have been logged since the ids were selected
+    @Modifying
+    @Query("UPDATE Profile p SET p.studyStreak = 0 WHERE p.user.id IN :userIds AND p.studyStreak > 0 AND NOT EXISTS " +
+           "(SELECT a.id FROM Activity a WHERE a.user.id = p.user.id AND a.activityDate >= :since)")
+    int resetEndedStreaks(Collection<UUID> userIds, LocalDate since);
+
+    @Query("SELECT p.user.id FROM Profile p WHERE p.user.id IN :userIds AND p.studyStreak = 0")
+    List<UUID> findUserIdsWithoutStreak(Collection<UUID> userIds);
 }
 
@@ -32,15 +32,6 @@ public interface StudySessionRepository extends JpaRepository<StudySession, UUID
     @Query("SELECT s FROM StudySession s WHERE s.scheduledAt BETWEEN :start AND :end AND s.status = 'SCHEDULED'")
     List<StudySession> findSessionsToRemind(LocalDateTime start, LocalDateTime end);
     
-    // Leaderboard: Most sessions completed (including group sessions)
-    @Query("SELECT u.id, COUNT(DISTINCT s) as sessionCount FROM StudySession s " +
-           "LEFT JOIN s.studyGroup g " +
-           "LEFT JOIN g.members m " +
-           "JOIN User u ON (s.creator.id = u.id OR s.partner.id = u.id OR m.user.id = u.id) " +
-           "WHERE s.status = 'COMPLETED' " +
-           "GROUP BY u.id ORDER BY sessionCount DESC")
-    List<Object[]> findMostSessionsCompleted();
-    
     // Count sessions for a user within a date range (for dashboard stats)
     @Query("SELECT COUNT(DISTINCT s) FROM StudySession s " +
            "LEFT JOIN s.studyGroup g " +
@@ -2,11 +2,15 @@ package com.studymatch.repository;
 
 import com.studymatch.model.UserBadge;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
@@ -18,9 +22,24 @@ public interface UserBadgeRepository extends JpaRepository<UserBadge, UUID> {
     
     boolean existsByUserIdAndBadgeId(UUID userId, UUID badgeId);
     
+    @Query("SELECT ub.badge.id FROM UserBadge ub WHERE ub.user.id = :userId")
+    Set<UUID> findBadgeIdsByUserId(UUID userId);
+    
     @Query("SELECT ub FROM UserBadge ub WHERE ub.user.id = :userId AND ub.seen = false ORDER BY ub.earnedAt DESC")
     List<UserBadge> findUnseenBadges(UUID userId);
     
+    @Modifying
+    @Query("UPDATE UserBadge ub SET ub.seen = true WHERE ub.user.id = :userId AND ub.seen = false")
+    int markAllSeen(UUID userId);
+    
+    @Modifying
+    @Query("UPDATE UserBadge ub SET ub.seen = true WHERE ub.user.id = :userId AND ub.badge.id IN :badgeIds AND ub.seen = false")
+    int markSeen(UUID userId, Collection<UUID> badgeIds);
+    
+    @Modifying
+    @Query("UPDATE UserBadge ub SET ub.seen = true WHERE ub.user.id = :userId AND ub.earnedAt <= :upTo AND ub.seen = false")
+    int markSeenUpTo(UUID userId, LocalDateTime upTo);
+    
     @Query("SELECT COUNT(ub) FROM UserBadge ub WHERE ub.user.id = :userId")
     Integer countByUserId(UUID userId);
     
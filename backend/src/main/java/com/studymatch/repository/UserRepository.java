@@ -1,11 +1,15 @@
 package com.studymatch.repository;
 
 import com.studymatch.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,6 +19,13 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     
     Optional<User> findByEmail(String email);
     
+    @Query("SELECT u.id FROM User u ORDER BY u.id")
+    List<UUID> findAllIds(Pageable pageable);
+    
+    // Leaderboard: users with their profiles in one round trip (the inverse one-to-one is never lazy)
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.profile WHERE u.id IN :userIds")
+    List<User> findWithProfilesByIdIn(Collection<UUID> userIds);
+    
     boolean existsByEmail(String email);
     
     Optional<User> findByUsername(String username);
@@ -32,5 +43,18 @@ public interface UserRepository extends JpaRepository<User, UUID> {
            "LOWER(u.displayName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "LOWER(u.email) LIKE LOWER(CONCAT('%', :query, '%')))")
     List<User> searchUsers(@Param("userId") UUID userId, @Param("query") String query);
-}
 
+    // Batched presence writes: one statement for every user that changed to the same state.
+    // lastSeen is when the user was last online, so only going offline stamps it
+    @Modifying
+    @Query("UPDATE User u SET u.isOnline = true WHERE u.id IN :userIds")
+    int markOnline(Collection<UUID> userIds);
+
+    @Modifying
+    @Query("UPDATE User u SET u.isOnline = false, u.lastSeen = :lastSeen WHERE u.id IN :userIds")
+    int markOffline(Collection<UUID> userIds, LocalDateTime lastSeen);
+
+    @Modifying
+    @Query("UPDATE User u SET u.isOnline = false WHERE u.isOnline = true")
+    int markAllOffline();
+}
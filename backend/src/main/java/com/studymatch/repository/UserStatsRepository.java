@@ -0,0 +1,76 @@
+package com.studymatch.repository;
+
+import com.studymatch.model.UserStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, UUID> {
+
+    // Counter updates are single UPDATE statements so concurrent changes never overwrite each other.
+    // Each returns the number of rows touched; 0 means the user has no stats row yet.
+
+    @Modifying
+    @Query("UPDATE UserStats s SET s.totalMinutes = s.totalMinutes + :minutes, " +
+           "s.activeDays = s.activeDays + :activeDays, s.weekendDays = s.weekendDays + :weekendDays, " +
+           "s.earlyBirdDays = s.earlyBirdDays + :earlyBirdDays, s.nightOwlDays = s.nightOwlDays + :nightOwlDays, " +
+           "s.updatedAt = :now WHERE s.userId = :userId")
+    int addActivity(UUID userId, long minutes, int activeDays, int weekendDays,
+                    int earlyBirdDays, int nightOwlDays, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE UserStats s SET s.completedSessions = s.completedSessions + :delta, s.updatedAt = :now " +
+           "WHERE s.userId = :userId")
+    int addCompletedSessions(UUID userId, int delta, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE UserStats s SET s.partnerCount = s.partnerCount + :delta, s.updatedAt = :now " +
+           "WHERE s.userId = :userId")
+    int addPartners(UUID userId, int delta, LocalDateTime now);
+
+    @Query("SELECT s.activityDaysFrom, s.activityDays FROM UserStats s WHERE s.userId = :userId")
+    List<Object[]> findActivityDays(UUID userId);
+
+    @Modifying
+    @Query("UPDATE UserStats s SET s.activityDaysFrom = :from, s.activityDays = :days WHERE s.userId = :userId")
+    int setActivityDays(UUID userId, LocalDate from, byte[] days);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserStats s WHERE s.userId IN :userIds")
+    List<UserStats> findAllForUpdate(Collection<UUID> userIds);
+
+    // The stats row together with the streak kept on the profile (null without a profile)
+    @Query("SELECT s, p.studyStreak FROM UserStats s LEFT JOIN Profile p ON p.user.id = s.userId WHERE s.userId = :userId")
+    List<Object[]> findWithStreak(UUID userId);
+
+    @Query("SELECT s FROM UserStats s JOIN User u ON u.id = s.userId WHERE u.deleted = false OR u.deleted IS NULL")
+    List<UserStats> findAllActive();
+
+    @Query("SELECT s FROM UserStats s JOIN User u ON u.id = s.userId " +
+           "WHERE s.userId IN :userIds AND (u.deleted = false OR u.deleted IS NULL)")
+    List<UserStats> findActiveByUserIdIn(Collection<UUID> userIds);
+
+    // Leaderboard: ranked counters, excluding deleted accounts
+    @Query("SELECT s.userId, s.activeDays FROM UserStats s JOIN User u ON u.id = s.userId " +
+           "WHERE s.activeDays > 0 AND (u.deleted = false OR u.deleted IS NULL) ORDER BY s.activeDays DESC")
+    List<Object[]> findTopActiveDays(Pageable pageable);
+
+    @Query("SELECT s.userId, s.completedSessions FROM UserStats s JOIN User u ON u.id = s.userId " +
+           "WHERE s.completedSessions > 0 AND (u.deleted = false OR u.deleted IS NULL) ORDER BY s.completedSessions DESC")
+    List<Object[]> findTopCompletedSessions(Pageable pageable);
+
+    @Query("SELECT s.userId, s.partnerCount FROM UserStats s JOIN User u ON u.id = s.userId " +
+           "WHERE s.partnerCount > 0 AND (u.deleted = false OR u.deleted IS NULL) ORDER BY s.partnerCount DESC")
+    List<Object[]> findTopPartnerCounts(Pageable pageable);
+}
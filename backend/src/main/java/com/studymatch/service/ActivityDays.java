@@ -0,0 +1,160 @@
+package com.studymatch.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * The days a user logged activity on, as a bitmap: bit i (least significant first within each
+ * byte) is the day {@code from + i}. The first day is kept on a multiple of 8 epoch days, so
+ * growing the bitmap in either direction only adds whole bytes. Counts and streaks are read a
+ * byte at a time, which keeps them cheap however long the history gets.
+ */
+public final class ActivityDays {
+
+    private static final ActivityDays EMPTY = new ActivityDays(0, new byte[0]);
+
+    // Bits of the Saturdays and Sundays among the 8 days starting at an epoch day, by that day mod 7
+    private static final int[] WEEKEND_MASKS = new int[7];
+
+    static {
+        for (int start = 0; start < 7; start++) {
+            for (int bit = 0; bit < 8; bit++) {
+                DayOfWeek day = LocalDate.ofEpochDay(start + bit).getDayOfWeek();
+                if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY) {
+                    WEEKEND_MASKS[start] |= 1 << bit;
+                }
+            }
+        }
+    }
+
+    private final long from;
+    private final byte[] bits;
+
+    private ActivityDays(long from, byte[] bits) {
+        this.from = from;
+        this.bits = bits;
+    }
+
+    public static ActivityDays empty() {
+        return EMPTY;
+    }
+
+    /**
+     * The bitmap as stored by {@link #from()} and {@link #bits()}; null means no days.
+     */
+    public static ActivityDays of(LocalDate from, byte[] bits) {
+        return from != null && bits != null && bits.length > 0
+            ? new ActivityDays(from.toEpochDay(), bits.clone())
+            : EMPTY;
+    }
+
+    public static ActivityDays of(Collection<LocalDate> days) {
+        if (days.isEmpty()) {
+            return EMPTY;
+        }
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (LocalDate day : days) {
+            first = Math.min(first, day.toEpochDay());
+            last = Math.max(last, day.toEpochDay());
+        }
+        long from = alignDown(first);
+        byte[] bits = new byte[(int) ((last - from) / 8 + 1)];
+        for (LocalDate day : days) {
+            set(bits, day.toEpochDay() - from);
+        }
+        return new ActivityDays(from, bits);
+    }
+
+    /**
+     * The day of the first bit, or null if there are no days.
+     */
+    public LocalDate from() {
+        return bits.length > 0 ? LocalDate.ofEpochDay(from) : null;
+    }
+
+    public byte[] bits() {
+        return bits.length > 0 ? bits.clone() : null;
+    }
+
+    public boolean contains(LocalDate day) {
+        long position = day.toEpochDay() - from;
+        return position >= 0 && position < bits.length * 8L
+            && (bits[(int) (position >> 3)] & (1 << (position & 7))) != 0;
+    }
+
+    /**
+     * These days plus the given one; this instance if the day is already set.
+     */
+    public ActivityDays with(LocalDate day) {
+        if (contains(day)) {
+            return this;
+        }
+        long epochDay = day.toEpochDay();
+        if (bits.length == 0) {
+            long start = alignDown(epochDay);
+            byte[] grown = new byte[1];
+            set(grown, epochDay - start);
+            return new ActivityDays(start, grown);
+        }
+        long start = Math.min(from, alignDown(epochDay));
+        long end = Math.max(from + bits.length * 8L, epochDay + 1);
+        byte[] grown = new byte[(int) ((end - start + 7) / 8)];
+        System.arraycopy(bits, 0, grown, (int) ((from - start) / 8), bits.length);
+        set(grown, epochDay - start);
+        return new ActivityDays(start, grown);
+    }
+
+    public int count() {
+        int count = 0;
+        for (byte b : bits) {
+            count += Integer.bitCount(b & 0xFF);
+        }
+        return count;
+    }
+
+    public int weekendCount() {
+        int count = 0;
+        for (int index = 0; index < bits.length; index++) {
+            count += Integer.bitCount(bits[index] & WEEKEND_MASKS[(int) Math.floorMod(from + index * 8L, 7L)]);
+        }
+        return count;
+    }
+
+    /**
+     * Consecutive active days ending today, or ending yesterday while today has no activity yet.
+     */
+    public int streakAt(LocalDate today) {
+        LocalDate end = contains(today) ? today : today.minusDays(1);
+        if (!contains(end)) {
+            return 0;
+        }
+        long position = end.toEpochDay() - from;
+        int index = (int) (position >> 3);
+        int bit = (int) (position & 7);
+
+        // The end day and the days before it in its byte, moved to the top of the byte
+        int run = leadingOnes((bits[index] << (7 - bit)) & 0xFF);
+        if (run <= bit) {
+            return run;
+        }
+        int streak = run;
+        while (--index >= 0 && bits[index] == (byte) 0xFF) {
+            streak += 8;
+        }
+        return index >= 0 ? streak + leadingOnes(bits[index] & 0xFF) : streak;
+    }
+
+    private static int leadingOnes(int value) {
+        return Integer.numberOfLeadingZeros(~value & 0xFF) - 24;
+    }
+
+    private static void set(byte[] bits, long position) {
+        bits[(int) (position >> 3)] |= (byte) (1 << (position & 7));
+    }
+
+    private static long alignDown(long epochDay) {
+        return Math.floorDiv(epochDay, 8) * 8;
+    }
+}
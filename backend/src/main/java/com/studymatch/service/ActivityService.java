@@ -1,15 +1,18 @@
 package com.studymatch.service;
 
 import com.studymatch.dto.ActivityDto;
-import com.studymatch.dto.BadgeDto;
+import com.studymatch.event.ActivityLoggedEvent;
 import com.studymatch.model.Activity;
 import com.studymatch.model.Profile;
 import com.studymatch.model.User;
+import com.studymatch.model.UserStats;
 import com.studymatch.repository.ActivityRepository;
-import com.studymatch.repository.MatchRepository;
 import com.studymatch.repository.ProfileRepository;
 import com.studymatch.repository.StudySessionRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,18 +24,23 @@ import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ActivityService {
 
+    private static final int STREAK_RESET_BATCH_SIZE = 500;
+
     private final ActivityRepository activityRepository;
     private final ProfileRepository profileRepository;
     private final StudySessionRepository sessionRepository;
-    private final MatchRepository matchRepository;
     private final UserService userService;
-    private final BadgeService badgeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserStatsService userStatsService;
+    private final LeaderboardRankingService rankingService;
 
     public List<ActivityDto> getActivities(LocalDate startDate, LocalDate endDate) {
         User currentUser = userService.getCurrentUser();
@@ -85,6 +93,8 @@ public class ActivityService {
                 .activityDate(date)
                 .studyMinutes(0)
                 .build());
+        boolean newDay = activity.getId() == null;
+        LocalTime previousStartTime = activity.getStartTime();
 
         activity.setStudyMinutes(activity.getStudyMinutes() + studyMinutes);
         
@@ -102,12 +112,14 @@ public class ActivityService {
         }
 
         activity = activityRepository.save(activity);
+        ActivityDays days = userStatsService.recordActivity(
+            currentUser.getId(), activity, newDay, previousStartTime, studyMinutes);
 
         // Update streak
-        updateStreak(currentUser);
+        updateStreak(currentUser, days);
 
-        // Check and award badges
-        badgeService.checkAndAwardBadges(currentUser);
+        // Badges are checked once this commits
+        eventPublisher.publishEvent(new ActivityLoggedEvent(currentUser.getId(), date, studyMinutes));
 
         return toDto(activity);
     }
@@ -124,7 +136,7 @@ public class ActivityService {
         Integer totalMinutes = activityRepository.sumStudyMinutes(
             currentUser.getId(), weekAgo, today
         );
-        Integer daysActive = activityRepository.countActiveDays(currentUser.getId());
+        UserStats stats = userStatsService.getStats(currentUser.getId());
 
         Profile profile = profileRepository.findByUser(currentUser).orElse(null);
         int streak = profile != null && profile.getStudyStreak() != null ? profile.getStudyStreak() : 0;
@@ -138,9 +150,6 @@ public class ActivityService {
             currentUser.getId(), weekStartTime, weekEndTime
         );
 
-        // Count mutual matches (friends)
-        int friendsCount = matchRepository.findMutualMatches(currentUser.getId()).size();
-
         // Today's minutes
         Integer todayMinutes = activityRepository.sumStudyMinutes(currentUser.getId(), today, today);
         
@@ -159,9 +168,9 @@ public class ActivityService {
         return ActivityDto.Stats.builder()
             .streak(streak)
             .totalMinutes(totalMinutes != null ? totalMinutes : 0)
-            .daysActive(daysActive != null ? daysActive : 0)
+            .daysActive(stats.getActiveDays())
             .sessionsThisWeek(sessionsThisWeek != null ? sessionsThisWeek : 0)
-            .friendsCount(friendsCount)
+            .friendsCount(stats.getPartnerCount())
             .dailyGoalMinutes(dailyGoal)
             .weeklyGoalMinutes(weeklyGoal)
             .todayMinutes(todayMinutes != null ? todayMinutes : 0)
@@ -171,61 +180,43 @@ public class ActivityService {
             .build();
     }
 
-    @Transactional
-    public void updateStreak(User user) {
+    private void updateStreak(User user, ActivityDays days) {
         Profile profile = profileRepository.findByUser(user).orElse(null);
         if (profile == null) return;
 
-        List<Activity> recentActivities = activityRepository.findRecentActivities(user.getId());
-        
-        if (recentActivities.isEmpty()) {
-            profile.setStudyStreak(0);
-            profileRepository.save(profile);
-            return;
-        }
-        
-        // Get unique dates sorted descending (most recent first)
-        List<LocalDate> activeDates = recentActivities.stream()
-            .map(Activity::getActivityDate)
-            .distinct()
-            .sorted((d1, d2) -> d2.compareTo(d1))
-            .toList();
-        
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-        
         // Streak only counts if user studied today or yesterday
-        LocalDate firstActiveDate = activeDates.get(0);
-        if (!firstActiveDate.equals(today) && !firstActiveDate.equals(yesterday)) {
-            profile.setStudyStreak(0);
-            profileRepository.save(profile);
-            return;
-        }
-        
-        // Count consecutive days starting from the most recent active date
-        int streak = 1;
-        LocalDate expectedDate = firstActiveDate.minusDays(1);
-        
-        for (int i = 1; i < activeDates.size(); i++) {
-            LocalDate currentDate = activeDates.get(i);
-            if (currentDate.equals(expectedDate)) {
-                streak++;
-                expectedDate = currentDate.minusDays(1);
-            } else {
-                break;
-            }
-        }
+        saveStreak(profile, days.streakAt(LocalDate.now()));
+    }
 
+    private void saveStreak(Profile profile, int streak) {
         profile.setStudyStreak(streak);
         profileRepository.save(profile);
+        rankingService.setScore(profile.getUser().getId(), LeaderboardRankingService.Category.STREAK, streak);
     }
 
-    // Daily streak update job - resets streaks for users who didn't study
+    // Daily streak update job - resets streaks for users who didn't study yesterday
     @Scheduled(cron = "0 0 0 * * *") // Midnight every day
     @Transactional
     public void dailyStreakUpdate() {
-        // This could reset streaks for users who didn't study yesterday
-        // For simplicity, streaks are calculated on-the-fly
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        int reset = 0;
+        List<UUID> userIds;
+        do {
+            // Reset streaks leave the selection, so the first page is always the next batch
+            userIds = profileRepository.findEndedStreakUserIds(yesterday, PageRequest.of(0, STREAK_RESET_BATCH_SIZE));
+            if (userIds.isEmpty()) break;
+            if (profileRepository.resetEndedStreaks(userIds, yesterday) == 0) continue;
+
+            // Only the rows actually reset; a user who logged activity since the select keeps their rank
+            List<UUID> resetIds = profileRepository.findUserIdsWithoutStreak(userIds);
+            for (UUID userId : resetIds) {
+                rankingService.setScore(userId, LeaderboardRankingService.Category.STREAK, 0);
+            }
+            reset += resetIds.size();
+        } while (userIds.size() == STREAK_RESET_BATCH_SIZE);
+        if (reset > 0) {
+            log.info("Reset {} ended study streaks", reset);
+        }
     }
 
     private ActivityDto toDto(Activity activity) {
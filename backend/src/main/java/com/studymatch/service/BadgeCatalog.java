@@ -0,0 +1,97 @@
+package com.studymatch.service;
+
+import com.studymatch.model.Badge;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Every badge definition, loaded once and never modified, indexed by code, id and category.
+ * Within a category badges are sorted by threshold, so the badges a progress value reaches are
+ * a prefix found by binary search.
+ */
+final class BadgeCatalog {
+
+    private static final class Thresholds {
+        final int[] thresholds;
+        final List<Badge> badges;
+
+        Thresholds(List<Badge> badges) {
+            this.badges = badges.stream()
+                .sorted(Comparator.comparing(Badge::getThreshold))
+                .toList();
+            this.thresholds = this.badges.stream().mapToInt(Badge::getThreshold).toArray();
+        }
+
+        // Badges with threshold <= progress
+        List<Badge> reachedAt(int progress) {
+            int low = 0;
+            int high = thresholds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (thresholds[mid] <= progress) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return badges.subList(0, low);
+        }
+    }
+
+    private final List<Badge> badges;
+    private final Map<String, Badge> byCode;
+    private final Map<UUID, Badge> byId;
+    private final Map<String, Thresholds> byCategory;
+
+    private BadgeCatalog(List<Badge> badges) {
+        this.badges = List.copyOf(badges);
+        this.byCode = this.badges.stream().collect(Collectors.toUnmodifiableMap(Badge::getCode, badge -> badge));
+        this.byId = this.badges.stream().collect(Collectors.toUnmodifiableMap(Badge::getId, badge -> badge));
+        this.byCategory = this.badges.stream()
+            .collect(Collectors.groupingBy(Badge::getCategory, LinkedHashMap::new, Collectors.toList()))
+            .entrySet().stream()
+            .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> new Thresholds(entry.getValue())));
+    }
+
+    /**
+     * Builds a catalog from badges in display order.
+     */
+    static BadgeCatalog of(List<Badge> badges) {
+        return new BadgeCatalog(badges);
+    }
+
+    static BadgeCatalog empty() {
+        return new BadgeCatalog(List.of());
+    }
+
+    // All badges in display order
+    List<Badge> all() {
+        return badges;
+    }
+
+    int size() {
+        return badges.size();
+    }
+
+    Optional<Badge> byCode(String code) {
+        return Optional.ofNullable(byCode.get(code));
+    }
+
+    Optional<Badge> byId(UUID id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    List<Badge> inCategory(String category) {
+        Thresholds thresholds = byCategory.get(category);
+        return thresholds != null ? thresholds.badges : List.of();
+    }
+
+    /**
+     * Badges in the category whose threshold the progress value has reached, lowest first.
+     */
+    List<Badge> reachedAt(String category, int progress) {
+        Thresholds thresholds = byCategory.get(category);
+        return thresholds != null ? thresholds.reachedAt(progress) : List.of();
+    }
+}
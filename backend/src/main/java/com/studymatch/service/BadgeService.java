@@ -1,18 +1,29 @@
 package com.studymatch.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.studymatch.dto.BadgeDto;
+import com.studymatch.event.ActivityLoggedEvent;
+import com.studymatch.event.MatchBecameMutualEvent;
+import com.studymatch.event.SessionCompletedEvent;
 import com.studymatch.model.*;
 import com.studymatch.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import jakarta.annotation.PostConstruct;
-import java.time.LocalDate;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,10 +33,9 @@ public class BadgeService {
 
     private final BadgeRepository badgeRepository;
     private final UserBadgeRepository userBadgeRepository;
-    private final ActivityRepository activityRepository;
-    private final ProfileRepository profileRepository;
-    private final MatchRepository matchRepository;
-    private final StudySessionRepository sessionRepository;
+    private final UserRepository userRepository;
+    private final UserStatsService userStatsService;
+    private final SimpMessagingTemplate messagingTemplate;
 
     // Badge definitions
     private static final List<BadgeDefinition> BADGE_DEFINITIONS = Arrays.asList(
@@ -59,11 +69,31 @@ public class BadgeService {
         new BadgeDefinition("weekend_warrior", "Weekend Warrior", "🎉", "Study on 10 weekend days", "CONSISTENCY", 10, 42)
     );
 
+    private static final Set<String> ALL_CATEGORIES = BADGE_DEFINITIONS.stream()
+        .map(BadgeDefinition::category)
+        .collect(Collectors.toUnmodifiableSet());
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    // Categories whose progress moves when study time is logged
+    private static final Set<String> ACTIVITY_CATEGORIES = Set.of("STREAK", "HOURS", "CONSISTENCY");
+
+    // Badge ids each user has earned, so evaluations skip them without a query per badge
+    private final Cache<UUID, Set<UUID>> earnedBadgeIds = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterAccess(Duration.ofHours(1))
+        .build();
+
+    // Badges only change when definitions are seeded, so they are read from the database once
+    private volatile BadgeCatalog catalog = BadgeCatalog.empty();
+
     @PostConstruct
     @Transactional
     public void initializeBadges() {
+        catalog = BadgeCatalog.of(badgeRepository.findAllByOrderByDisplayOrderAsc());
+        boolean created = false;
         for (BadgeDefinition def : BADGE_DEFINITIONS) {
-            if (!badgeRepository.existsByCode(def.code)) {
+            if (catalog.byCode(def.code).isEmpty()) {
                 Badge badge = Badge.builder()
                     .code(def.code)
                     .name(def.name)
@@ -75,13 +105,17 @@ public class BadgeService {
                     .build();
                 badgeRepository.save(badge);
                 log.info("Created badge: {}", def.code);
+                created = true;
             }
         }
+        if (created) {
+            catalog = BadgeCatalog.of(badgeRepository.findAllByOrderByDisplayOrderAsc());
+        }
     }
 
     public BadgeDto.BadgeListResponse getBadges(User user) {
-        List<Badge> allBadges = badgeRepository.findAllByOrderByDisplayOrderAsc();
-        List<UserBadge> userBadges = userBadgeRepository.findByUserIdWithBadge(user.getId());
+        BadgeCatalog badges = catalog;
+        List<UserBadge> userBadges = userBadgeRepository.findByUserIdOrderByEarnedAtDesc(user.getId());
         Set<UUID> earnedBadgeIds = userBadges.stream()
             .map(ub -> ub.getBadge().getId())
             .collect(Collectors.toSet());
@@ -89,10 +123,10 @@ public class BadgeService {
         Map<String, Integer> progressMap = calculateProgress(user);
 
         List<BadgeDto> earnedBadges = userBadges.stream()
-            .map(ub -> toBadgeDto(ub.getBadge(), ub.getEarnedAt(), true, progressMap))
+            .map(ub -> toBadgeDto(badgeOf(ub), ub.getEarnedAt(), true, progressMap))
             .collect(Collectors.toList());
 
-        List<BadgeDto> availableBadges = allBadges.stream()
+        List<BadgeDto> availableBadges = badges.all().stream()
             .filter(b -> !earnedBadgeIds.contains(b.getId()))
             .map(b -> toBadgeDto(b, null, false, progressMap))
             .collect(Collectors.toList());
@@ -101,143 +135,194 @@ public class BadgeService {
             .earnedBadges(earnedBadges)
             .availableBadges(availableBadges)
             .totalEarned(earnedBadges.size())
-            .totalAvailable(allBadges.size())
+            .totalAvailable(badges.size())
             .build();
     }
 
     public List<BadgeDto> getEarnedBadges(User user) {
-        List<UserBadge> userBadges = userBadgeRepository.findByUserIdWithBadge(user.getId());
-        Map<String, Integer> progressMap = calculateProgress(user);
+        // Progress is only shown for badges not yet earned
+        List<UserBadge> userBadges = userBadgeRepository.findByUserIdOrderByEarnedAtDesc(user.getId());
         
         return userBadges.stream()
-            .map(ub -> toBadgeDto(ub.getBadge(), ub.getEarnedAt(), true, progressMap))
+            .map(ub -> toBadgeDto(badgeOf(ub), ub.getEarnedAt(), true, Map.of()))
             .collect(Collectors.toList());
     }
 
     public List<BadgeDto.NewBadgeNotification> getUnseenBadges(User user) {
         List<UserBadge> unseenBadges = userBadgeRepository.findUnseenBadges(user.getId());
         return unseenBadges.stream()
-            .map(ub -> BadgeDto.NewBadgeNotification.builder()
-                .id(ub.getBadge().getId())
-                .code(ub.getBadge().getCode())
-                .name(ub.getBadge().getName())
-                .emoji(ub.getBadge().getEmoji())
-                .description(ub.getBadge().getDescription())
-                .earnedAt(ub.getEarnedAt())
-                .build())
+            .map(ub -> toNotification(badgeOf(ub), ub.getEarnedAt()))
             .collect(Collectors.toList());
     }
 
     @Transactional
     public void markBadgesAsSeen(User user) {
-        List<UserBadge> unseenBadges = userBadgeRepository.findUnseenBadges(user.getId());
-        for (UserBadge ub : unseenBadges) {
-            ub.setSeen(true);
-            userBadgeRepository.save(ub);
+        userBadgeRepository.markAllSeen(user.getId());
+    }
+
+    /**
+     * Marks the given badges, or all earned up to a watermark, as seen in one statement.
+     */
+    @Transactional
+    public void markBadgesAsSeen(User user, BadgeDto.MarkSeenRequest request) {
+        boolean hasIds = request.getBadgeIds() != null && !request.getBadgeIds().isEmpty();
+        if (hasIds == (request.getUpTo() != null)) {
+            throw new IllegalArgumentException("Provide either badgeIds or upTo");
+        }
+        if (hasIds) {
+            if (request.getBadgeIds().size() > MAX_BATCH_SIZE) {
+                throw new IllegalArgumentException("Cannot mark more than " + MAX_BATCH_SIZE + " badges at once");
+            }
+            userBadgeRepository.markSeen(user.getId(), request.getBadgeIds());
+        } else {
+            userBadgeRepository.markSeenUpTo(user.getId(), request.getUpTo());
+        }
+    }
+
+    // Badge evaluation runs after the change that triggered it has committed, off the request
+    // thread, and only looks at the categories that change can move
+
+    @Async
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onActivityLogged(ActivityLoggedEvent event) {
+        awardBadges(event.userId(), ACTIVITY_CATEGORIES);
+    }
+
+    @Async
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSessionCompleted(SessionCompletedEvent event) {
+        for (UUID userId : event.participantIds()) {
+            awardBadges(userId, Set.of("SESSION"));
         }
     }
 
+    @Async
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onMatchBecameMutual(MatchBecameMutualEvent event) {
+        awardBadges(event.user1Id(), Set.of("SOCIAL"));
+        awardBadges(event.user2Id(), Set.of("SOCIAL"));
+    }
+
+    /**
+     * Checks every category for the user and awards anything they qualify for.
+     */
     @Transactional
     public List<BadgeDto.NewBadgeNotification> checkAndAwardBadges(User user) {
-        List<BadgeDto.NewBadgeNotification> newBadges = new ArrayList<>();
-        Map<String, Integer> progress = calculateProgress(user);
-        List<Badge> allBadges = badgeRepository.findAllByOrderByDisplayOrderAsc();
+        return awardBadges(user.getId(), ALL_CATEGORIES);
+    }
 
-        for (Badge badge : allBadges) {
-            if (userBadgeRepository.existsByUserIdAndBadgeId(user.getId(), badge.getId())) {
-                continue; // Already earned
-            }
+    private List<BadgeDto.NewBadgeNotification> awardBadges(UUID userId, Set<String> categories) {
+        BadgeCatalog badges = catalog;
+        Set<UUID> earned = earnedBadgeIds(userId);
+        boolean allEarned = categories.stream()
+            .flatMap(category -> badges.inCategory(category).stream())
+            .allMatch(badge -> earned.contains(badge.getId()));
+        if (allEarned) {
+            return List.of();
+        }
 
-            Integer currentProgress = progress.getOrDefault(badge.getCategory(), 0);
-            if (currentProgress >= badge.getThreshold()) {
+        List<BadgeDto.NewBadgeNotification> newBadges = new ArrayList<>();
+        Map<String, Integer> progress = calculateProgress(userId);
+        List<Badge> reached = categories.stream()
+            .flatMap(category -> badges.reachedAt(category, progress.getOrDefault(category, 0)).stream())
+            .sorted(Comparator.comparing(Badge::getDisplayOrder))
+            .toList();
+        for (Badge badge : reached) {
+            // The set also keeps a concurrent evaluation for the same user from awarding it twice
+            if (earned.add(badge.getId())) {
                 UserBadge userBadge = UserBadge.builder()
-                    .user(user)
+                    .user(userRepository.getReferenceById(userId))
                     .badge(badge)
                     .earnedAt(LocalDateTime.now())
                     .seen(false)
                     .build();
                 userBadgeRepository.save(userBadge);
 
-                newBadges.add(BadgeDto.NewBadgeNotification.builder()
-                    .id(badge.getId())
-                    .code(badge.getCode())
-                    .name(badge.getName())
-                    .emoji(badge.getEmoji())
-                    .description(badge.getDescription())
-                    .earnedAt(userBadge.getEarnedAt())
-                    .build());
+                newBadges.add(toNotification(badge, userBadge.getEarnedAt()));
 
-                log.info("User {} earned badge: {}", user.getEmail(), badge.getCode());
+                log.info("User {} earned badge: {}", userId, badge.getCode());
             }
         }
 
+        if (!newBadges.isEmpty()) {
+            afterAward(userId, newBadges);
+        }
         return newBadges;
     }
 
-    private Map<String, Integer> calculateProgress(User user) {
-        Map<String, Integer> progress = new HashMap<>();
-
-        // Get profile for streak
-        Profile profile = profileRepository.findByUser(user).orElse(null);
-        int streak = profile != null && profile.getStudyStreak() != null ? profile.getStudyStreak() : 0;
-        progress.put("STREAK", streak);
-
-        // Total study minutes (all time)
-        LocalDate farPast = LocalDate.of(2020, 1, 1);
-        LocalDate today = LocalDate.now();
-        Integer totalMinutes = activityRepository.sumStudyMinutes(user.getId(), farPast, today);
-        progress.put("HOURS", totalMinutes != null ? totalMinutes : 0);
+    private Set<UUID> earnedBadgeIds(UUID userId) {
+        return earnedBadgeIds.get(userId, id -> {
+            Set<UUID> earned = ConcurrentHashMap.newKeySet();
+            earned.addAll(userBadgeRepository.findBadgeIdsByUserId(id));
+            return earned;
+        });
+    }
 
-        // Count partners (mutual matches)
-        int partnerCount = matchRepository.findMutualMatches(user.getId()).size();
-        progress.put("SOCIAL", partnerCount);
+    // Awards are evaluated after the triggering request has returned, so the user is told over
+    // STOMP once the award commits. Badges added to the set must not outlive a rolled back award;
+    // reload them next time
+    private void afterAward(UUID userId, List<BadgeDto.NewBadgeNotification> newBadges) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pushNewBadges(userId, newBadges);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    pushNewBadges(userId, newBadges);
+                } else {
+                    earnedBadgeIds.invalidate(userId);
+                }
+            }
+        });
+    }
 
-        // Count completed sessions
-        int sessionCount = sessionRepository.countCompletedSessionsByUserId(user.getId());
-        progress.put("SESSION", sessionCount);
+    private void pushNewBadges(UUID userId, List<BadgeDto.NewBadgeNotification> newBadges) {
+        messagingTemplate.convertAndSendToUser(userId.toString(), "/queue/badges", newBadges);
+    }
 
-        // Early bird sessions (before 8 AM)
-        int earlyBirdCount = countEarlyBirdSessions(user.getId());
-        progress.put("EARLY_BIRD", earlyBirdCount);
+    private Map<String, Integer> calculateProgress(User user) {
+        return calculateProgress(user.getId());
+    }
 
-        // Night owl sessions (after 10 PM)
-        int nightOwlCount = countNightOwlSessions(user.getId());
-        progress.put("NIGHT_OWL", nightOwlCount);
+    private Map<String, Integer> calculateProgress(UUID userId) {
+        Map<String, Integer> progress = new HashMap<>();
 
-        // Weekend study days
-        int weekendDays = countWeekendStudyDays(user.getId());
-        progress.put("WEEKEND", weekendDays);
+        // Every counter comes from one query: the user's running totals and their profile streak
+        UserStatsService.StatsWithStreak statsWithStreak = userStatsService.getStatsWithStreak(userId);
+        UserStats stats = statsWithStreak.stats();
+        progress.put("STREAK", statsWithStreak.streak());
+        progress.put("HOURS", (int) Math.min(stats.getTotalMinutes(), Integer.MAX_VALUE));
+        progress.put("SOCIAL", stats.getPartnerCount());
+        progress.put("SESSION", stats.getCompletedSessions());
+        progress.put("EARLY_BIRD", stats.getEarlyBirdDays());
+        progress.put("NIGHT_OWL", stats.getNightOwlDays());
+        progress.put("WEEKEND", stats.getWeekendDays());
 
         // Consistency (for badges with special criteria)
-        progress.put("CONSISTENCY", Math.max(earlyBirdCount, Math.max(nightOwlCount, weekendDays)));
+        progress.put("CONSISTENCY", Math.max(stats.getEarlyBirdDays(), Math.max(stats.getNightOwlDays(), stats.getWeekendDays())));
 
         return progress;
     }
 
-    private int countEarlyBirdSessions(UUID userId) {
-        List<Activity> activities = activityRepository.findRecentActivities(userId);
-        return (int) activities.stream()
-            .filter(a -> a.getStartTime() != null && a.getStartTime().isBefore(LocalTime.of(8, 0)))
-            .count();
+    // The badge reference on a user badge is a lazy proxy; only its id is read
+    private Badge badgeOf(UserBadge userBadge) {
+        return catalog.byId(userBadge.getBadge().getId()).orElseGet(userBadge::getBadge);
     }
 
-    private int countNightOwlSessions(UUID userId) {
-        List<Activity> activities = activityRepository.findRecentActivities(userId);
-        return (int) activities.stream()
-            .filter(a -> a.getStartTime() != null && a.getStartTime().isAfter(LocalTime.of(22, 0)))
-            .count();
-    }
-
-    private int countWeekendStudyDays(UUID userId) {
-        List<Activity> activities = activityRepository.findRecentActivities(userId);
-        return (int) activities.stream()
-            .filter(a -> {
-                int dayOfWeek = a.getActivityDate().getDayOfWeek().getValue();
-                return dayOfWeek == 6 || dayOfWeek == 7; // Saturday or Sunday
-            })
-            .map(Activity::getActivityDate)
-            .distinct()
-            .count();
+    private BadgeDto.NewBadgeNotification toNotification(Badge badge, LocalDateTime earnedAt) {
+        return BadgeDto.NewBadgeNotification.builder()
+            .id(badge.getId())
+            .code(badge.getCode())
+            .name(badge.getName())
+            .emoji(badge.getEmoji())
+            .description(badge.getDescription())
+            .earnedAt(earnedAt)
+            .build();
     }
 
     private BadgeDto toBadgeDto(Badge badge, LocalDateTime earnedAt, boolean earned, Map<String, Integer> progress) {
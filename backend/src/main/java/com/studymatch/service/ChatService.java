@@ -1,15 +1,19 @@
 package com.studymatch.service;
 
 import com.studymatch.dto.ConversationDto;
+import com.studymatch.dto.DeliveryEvent;
 import com.studymatch.dto.MessageDto;
 import com.studymatch.model.Conversation;
+import com.studymatch.model.ConversationReceipt;
 import com.studymatch.model.Match;
 import com.studymatch.model.Message;
 import com.studymatch.model.User;
+import com.studymatch.repository.ConversationReceiptRepository;
 import com.studymatch.repository.ConversationRepository;
 import com.studymatch.repository.MatchRepository;
 import com.studymatch.repository.MessageRepository;
 import com.studymatch.repository.UserRepository;
+import com.studymatch.websocket.EventFrameSender;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -17,9 +21,14 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -28,19 +37,35 @@ import java.util.stream.Collectors;
 public class ChatService {
 
     private final ConversationRepository conversationRepository;
+    private final ConversationReceiptRepository receiptRepository;
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final MatchRepository matchRepository;
     private final UserService userService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final EventFrameSender eventFrameSender;
     private final NotificationService notificationService;
+    private final PresenceService presenceService;
+
+    // Upper bound on messages returned by one resumable sync call
+    private static final int SYNC_BATCH_SIZE = 200;
 
     public List<ConversationDto> getConversations() {
         User currentUser = userService.getCurrentUser();
         List<Conversation> conversations = conversationRepository.findByUserId(currentUser.getId());
+        if (conversations.isEmpty()) {
+            return List.of();
+        }
+
+        // Load every participant's watermarks for all conversations in one query
+        Map<UUID, List<ConversationReceipt>> receiptsByConversation = receiptRepository
+            .findByConversationIds(conversations.stream().map(Conversation::getId).toList())
+            .stream()
+            .collect(Collectors.groupingBy(r -> r.getConversation().getId()));
 
         return conversations.stream()
-            .map(conv -> toConversationDto(conv, currentUser.getId()))
+            .map(conv -> toConversationDto(conv, currentUser.getId(),
+                ReceiptWatermarks.of(conv, receiptsByConversation.getOrDefault(conv.getId(), List.of()))))
             .collect(Collectors.toList());
     }
 
@@ -54,29 +79,72 @@ public class ChatService {
         Conversation conversation = conversationRepository
             .findDirectConversation(currentUser, otherUser)
             .orElseGet(() -> {
-                Conversation newConv = Conversation.builder()
+                Conversation newConv = conversationRepository.save(Conversation.builder()
                     .participants(new ArrayList<>(List.of(currentUser, otherUser)))
-                    .build();
-                return conversationRepository.save(newConv);
+                    .build());
+                // Every participant gets their receipt up front, so marking read is a single UPDATE
+                receiptRepository.saveAll(newConv.getParticipants().stream()
+                    .map(participant -> ConversationReceipt.builder().conversation(newConv).user(participant).build())
+                    .toList());
+                presenceService.invalidateInterest(currentUser.getId(), otherUser.getId());
+                return newConv;
             });
 
-        return toConversationDto(conversation, currentUser.getId());
+        return toConversationDto(conversation, currentUser.getId(), loadWatermarks(conversation));
     }
 
+    @Transactional(readOnly = true)
     public Page<MessageDto> getMessages(UUID conversationId, int page) {
+        currentParticipantId(conversationId);
         Conversation conversation = conversationRepository.findById(conversationId)
             .orElseThrow(() -> new RuntimeException("Conversation not found"));
 
-        return messageRepository.findByConversationOrderBySentAtDesc(
+        ReceiptWatermarks watermarks = loadWatermarks(conversation);
+        return messageRepository.findByConversationOrderBySeqDesc(
             conversation, PageRequest.of(page, 50)
-        ).map(this::toMessageDto);
+        ).map(msg -> toMessageDto(msg, watermarks));
+    }
+
+    /**
+     * Messages with a sequence number above afterSeq, oldest first, so a client that
+     * reconnects (or spots a gap) fetches only what it missed. Callers page by
+     * repeating the call with the last seq returned until fewer than a batch come back.
+     */
+    @Transactional(readOnly = true)
+    public List<MessageDto> getMessagesAfter(UUID conversationId, long afterSeq) {
+        currentParticipantId(conversationId);
+        return getMessagesAfter(conversationId, afterSeq, SYNC_BATCH_SIZE);
+    }
+
+    // For callers that only pass the current user's own conversations
+    List<MessageDto> getMessagesAfter(UUID conversationId, long afterSeq, int limit) {
+        Conversation conversation = conversationRepository.findById(conversationId)
+            .orElseThrow(() -> new RuntimeException("Conversation not found"));
+
+        ReceiptWatermarks watermarks = loadWatermarks(conversation);
+        return messageRepository.findByConversationIdAfterSeq(
+            conversationId, afterSeq, PageRequest.of(0, limit)
+        ).stream().map(msg -> toMessageDto(msg, watermarks)).toList();
     }
 
     @Transactional
     public MessageDto sendMessage(UUID conversationId, String content) {
-        User currentUser = userService.getCurrentUser();
+        return sendMessageAs(userService.getCurrentUser().getId(), conversationId, content);
+    }
+
+    /**
+     * Sends a message on behalf of an already authenticated user, e.g. the identity held
+     * by a STOMP session. Does not consult the SecurityContext and takes the sender
+     * entity from the conversation's participants instead of looking it up.
+     */
+    @Transactional
+    public MessageDto sendMessageAs(UUID senderId, UUID conversationId, String content) {
         Conversation conversation = conversationRepository.findById(conversationId)
             .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        User currentUser = conversation.getParticipants().stream()
+            .filter(u -> u.getId().equals(senderId))
+            .findFirst()
+            .orElseThrow(() -> new RuntimeException("You are not a participant in this conversation"));
 
         // Check if this is an unmatched conversation
         // Find any other participant (works even if one user was removed)
@@ -97,14 +165,21 @@ public class ChatService {
             }
         }
 
+        // Take the next sequence number; the counter row stays locked until this transaction commits
+        if (conversationRepository.reserveMessageSeq(conversationId, 1) == 0) {
+            // First message since sequence numbers were introduced: the history goes before it
+            sequenceHistory(conversationId);
+            conversationRepository.reserveMessageSeq(conversationId, 1);
+        }
         Message message = Message.builder()
             .conversation(conversation)
             .sender(currentUser)
             .content(content)
+            .seq(conversationRepository.findLastMessageSeq(conversationId))
             .build();
 
         message = messageRepository.save(message);
-        MessageDto dto = toMessageDto(message);
+        MessageDto dto = toMessageDto(message, ReceiptWatermarks.NONE);
 
         // Send to all participants via WebSocket
         for (User participant : conversation.getParticipants()) {
@@ -134,34 +209,39 @@ public class ChatService {
         return dto;
     }
 
+    /**
+     * Numbers the messages a conversation had before sequence numbers existed, in sentAt order,
+     * and starts its counter after them. Starting the counter locks its row, so a message sent
+     * meanwhile waits and is numbered after the history. Does nothing once the counter exists.
+     */
     @Transactional
-    public void markAsRead(UUID conversationId) {
-        User currentUser = userService.getCurrentUser();
-        messageRepository.markAllAsRead(conversationId, currentUser.getId());
-    }
-
-    public void sendTypingIndicator(UUID conversationId, boolean isTyping) {
-        User currentUser = userService.getCurrentUser();
-        Conversation conversation = conversationRepository.findById(conversationId)
-            .orElseThrow(() -> new RuntimeException("Conversation not found"));
+    public void sequenceHistory(UUID conversationId) {
+        if (conversationRepository.startMessageSeq(conversationId) == 0) {
+            return;
+        }
 
-        var typingData = new java.util.HashMap<String, Object>();
-        typingData.put("conversationId", conversationId);
-        typingData.put("userId", currentUser.getId());
-        typingData.put("isTyping", isTyping);
+        List<Message> messages = messageRepository.findUnsequencedMessages(conversationId);
+        long seq = 0;
+        for (Message message : messages) {
+            message.setSeq(++seq);
+        }
+        messageRepository.saveAll(messages);
+        conversationRepository.reserveMessageSeq(conversationId, messages.size());
+    }
 
-        for (User participant : conversation.getParticipants()) {
-            if (!participant.getId().equals(currentUser.getId())) {
-                messagingTemplate.convertAndSendToUser(
-                    participant.getId().toString(),
-                    "/queue/typing",
-                    typingData
-                );
-            }
+    @Transactional
+    public void markAsRead(UUID conversationId) {
+        UUID userId = currentParticipantId(conversationId);
+        Long latest = conversationRepository.findLastMessageSeq(conversationId);
+        if (latest == null) {
+            return;
         }
+
+        // Advancing the watermark marks every earlier message as read with a one-row update
+        receiptRepository.advanceReadSeq(conversationId, userId, latest, LocalDateTime.now());
     }
 
-    private ConversationDto toConversationDto(Conversation conv, UUID currentUserId) {
+    private ConversationDto toConversationDto(Conversation conv, UUID currentUserId, ReceiptWatermarks watermarks) {
         List<ConversationDto.ParticipantDto> participants = conv.getParticipants().stream()
             .map(u -> ConversationDto.ParticipantDto.builder()
                 .id(u.getId())
@@ -174,10 +254,11 @@ public class ChatService {
 
         MessageDto lastMessage = null;
         if (!conv.getMessages().isEmpty()) {
-            lastMessage = toMessageDto(conv.getMessages().get(0));
+            lastMessage = toMessageDto(conv.getMessages().get(0), watermarks);
         }
 
-        long unreadCount = messageRepository.countUnreadMessages(conv.getId(), currentUserId);
+        long unreadCount = messageRepository.countUnreadMessages(
+            conv.getId(), currentUserId, watermarks.readSeq(currentUserId));
 
         // Check match status for direct conversations (2 participants)
         boolean isUnmatched = false;
@@ -227,42 +308,117 @@ public class ChatService {
 
     @Transactional
     public void markAsDelivered(UUID conversationId) {
-        User currentUser = userService.getCurrentUser();
-        List<Message> undeliveredMessages = messageRepository.findUndeliveredMessages(conversationId, currentUser.getId());
-        
-        java.time.LocalDateTime now = java.time.LocalDateTime.now();
-        for (Message msg : undeliveredMessages) {
-            msg.setStatus(Message.MessageStatus.DELIVERED);
-            msg.setDeliveredAt(now);
-            messageRepository.save(msg);
-            
-            // Notify sender that message was delivered
-            messagingTemplate.convertAndSendToUser(
-                msg.getSender().getId().toString(),
+        UUID userId = currentParticipantId(conversationId);
+        Long latest = conversationRepository.findLastMessageSeq(conversationId);
+        if (latest == null) {
+            return;
+        }
+
+        long previous = receiptRepository.findDeliveredSeq(conversationId, userId).orElse(0L);
+        if (latest <= previous) {
+            return;
+        }
+
+        // A concurrent call that already moved the watermark this far sends the frames instead
+        LocalDateTime now = LocalDateTime.now();
+        if (receiptRepository.advanceDeliveredSeq(conversationId, userId, latest, now) == 0) {
+            return;
+        }
+
+        // Messages between the old and new watermark, grouped by sender for one receipt frame each
+        Map<UUID, List<UUID>> messageIdsBySender = new LinkedHashMap<>();
+        for (Object[] row : messageRepository.findMessageIdsBetweenSeq(conversationId, userId, previous, latest)) {
+            messageIdsBySender.computeIfAbsent((UUID) row[1], k -> new ArrayList<>()).add((UUID) row[0]);
+        }
+
+        // Notify each sender that their messages were delivered
+        messageIdsBySender.forEach((senderId, messageIds) ->
+            eventFrameSender.sendToUser(
+                senderId,
                 "/queue/delivery",
-                java.util.Map.of(
-                    "messageId", msg.getId(),
-                    "conversationId", conversationId,
-                    "status", "DELIVERED",
-                    "deliveredAt", now
-                )
-            );
+                new DeliveryEvent(messageIds, conversationId, "DELIVERED", now, latest)
+            )
+        );
+    }
+
+    // Only participants may read a conversation's messages or write a receipt, which the others see
+    private UUID currentParticipantId(UUID conversationId) {
+        UUID userId = userService.getCurrentUser().getId();
+        if (!conversationRepository.findParticipantIds(conversationId).contains(userId)) {
+            throw new RuntimeException("You are not a participant in this conversation");
         }
+        return userId;
+    }
+
+    private ReceiptWatermarks loadWatermarks(Conversation conversation) {
+        return ReceiptWatermarks.of(conversation, receiptRepository.findByConversationIds(List.of(conversation.getId())));
     }
 
-    private MessageDto toMessageDto(Message msg) {
+    private MessageDto toMessageDto(Message msg, ReceiptWatermarks watermarks) {
+        UUID senderId = msg.getSender().getId();
+        ConversationReceipt deliveredReceipt = watermarks.furthestDelivered(senderId);
+        ConversationReceipt readReceipt = watermarks.furthestRead(senderId);
+
+        // Messages not yet numbered by the sequence backfill stay SENT
+        long seq = msg.getSeq() != null ? msg.getSeq() : Long.MAX_VALUE;
+        Message.MessageStatus status = Message.MessageStatus.SENT;
+        if (readReceipt != null && readReceipt.getReadSeq() >= seq) {
+            status = Message.MessageStatus.READ;
+        } else if (deliveredReceipt != null && deliveredReceipt.getDeliveredSeq() >= seq) {
+            status = Message.MessageStatus.DELIVERED;
+        }
+
         return MessageDto.builder()
             .id(msg.getId())
             .conversationId(msg.getConversation().getId())
-            .senderId(msg.getSender().getId())
+            .seq(msg.getSeq())
+            .senderId(senderId)
             .senderRole(msg.getSender().getRole().name())  // Include role for verified badge
             .content(msg.getContent())
-            .isRead(msg.getIsRead())
+            .isRead(status == Message.MessageStatus.READ)
             .sentAt(msg.getSentAt())
-            .status(msg.getStatus() != null ? msg.getStatus().name() : "SENT")
-            .deliveredAt(msg.getDeliveredAt())
-            .readAt(msg.getReadAt())
+            .status(status.name())
+            .deliveredAt(status != Message.MessageStatus.SENT && deliveredReceipt != null ? deliveredReceipt.getDeliveredAt() : null)
+            .readAt(status == Message.MessageStatus.READ ? readReceipt.getReadAt() : null)
             .build();
     }
-}
 
+    /**
+     * Receipt watermarks of one conversation, keyed by participant.
+     * A message counts as delivered/read once any other participant's watermark reaches it.
+     */
+    private record ReceiptWatermarks(Map<UUID, ConversationReceipt> byUser) {
+
+        static final ReceiptWatermarks NONE = new ReceiptWatermarks(Map.of());
+
+        static ReceiptWatermarks of(Conversation conversation, List<ConversationReceipt> receipts) {
+            Set<UUID> participantIds = conversation.getParticipants().stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+            return new ReceiptWatermarks(receipts.stream()
+                .filter(r -> participantIds.contains(r.getUser().getId()))
+                .collect(Collectors.toMap(r -> r.getUser().getId(), r -> r)));
+        }
+
+        long readSeq(UUID userId) {
+            ConversationReceipt receipt = byUser.get(userId);
+            return receipt != null && receipt.getReadSeq() != null ? receipt.getReadSeq() : 0;
+        }
+
+        ConversationReceipt furthestDelivered(UUID senderId) {
+            return byUser.entrySet().stream()
+                .filter(e -> !e.getKey().equals(senderId) && e.getValue().getDeliveredSeq() != null)
+                .map(Map.Entry::getValue)
+                .max(Comparator.comparing(ConversationReceipt::getDeliveredSeq))
+                .orElse(null);
+        }
+
+        ConversationReceipt furthestRead(UUID senderId) {
+            return byUser.entrySet().stream()
+                .filter(e -> !e.getKey().equals(senderId) && e.getValue().getReadSeq() != null)
+                .map(Map.Entry::getValue)
+                .max(Comparator.comparing(ConversationReceipt::getReadSeq))
+                .orElse(null);
+        }
+    }
+}
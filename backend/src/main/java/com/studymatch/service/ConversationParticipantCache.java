@@ -0,0 +1,37 @@
+package com.studymatch.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.studymatch.repository.ConversationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory participant IDs per conversation for ephemeral chat traffic
+ * (typing indicators) that should not hit the database on every frame.
+ * Callers that add or remove participants must evict the conversation.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConversationParticipantCache {
+
+    private final ConversationRepository conversationRepository;
+
+    private final Cache<UUID, Set<UUID>> participantIds = Caffeine.newBuilder()
+        .expireAfterAccess(30, TimeUnit.MINUTES)
+        .maximumSize(10_000)
+        .build();
+
+    public Set<UUID> getParticipantIds(UUID conversationId) {
+        return participantIds.get(conversationId,
+            id -> Set.copyOf(conversationRepository.findParticipantIds(id)));
+    }
+
+    public void evict(UUID conversationId) {
+        participantIds.invalidate(conversationId);
+    }
+}
@@ -0,0 +1,287 @@
+package com.studymatch.service;
+
+import com.studymatch.dto.LeaderboardDto;
+import com.studymatch.dto.LeaderboardDto.LeaderboardEntry;
+import com.studymatch.model.User;
+import com.studymatch.model.UserStats;
+import com.studymatch.repository.ActivityRepository;
+import com.studymatch.repository.ProfileRepository;
+import com.studymatch.repository.UserRepository;
+import com.studymatch.repository.UserStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Full rankings for the leaderboard categories, held in memory so any user's rank and the users
+ * around them can be read in O(log n). Scores follow user_stats and profile streaks: writers
+ * report changes, which are applied once their transaction commits, and the indexes are rebuilt
+ * from the tables at startup and after each stats reconciliation. The same holds for each user's
+ * daily minutes over the last two weeks, which the weekly categories are summed from.
+ * Users whose scores change while a rebuild is loading are read again once it is swapped in.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardRankingService {
+
+    private static final int MAX_NEIGHBORS = 10;
+
+    // Rounds of re-reading users changed during a rebuild before leaving the rest to reconciliation
+    private static final int MAX_REREAD_ROUNDS = 5;
+
+    private final UserStatsRepository userStatsRepository;
+    private final ProfileRepository profileRepository;
+    private final UserRepository userRepository;
+    private final ActivityRepository activityRepository;
+
+    public enum Category {
+        STUDY_MINUTES(UserStats::getTotalMinutes, minutes -> {
+            double hours = Math.round(minutes / 60.0 * 10) / 10.0;
+            return hours + " hr" + (hours != 1 ? "s" : "");
+        }),
+        DAYS_ACTIVE(UserStats::getActiveDays, days -> days + " day" + (days > 1 ? "s" : "")),
+        SESSIONS_COMPLETED(UserStats::getCompletedSessions, sessions -> sessions + " session" + (sessions > 1 ? "s" : "")),
+        STUDY_PARTNERS(UserStats::getPartnerCount, partners -> partners + " partner" + (partners > 1 ? "s" : "")),
+        // Kept on the profile rather than in user_stats
+        STREAK(null, days -> days + " day" + (days > 1 ? "s" : ""));
+
+        private final Function<UserStats, Number> counter;
+        private final LongFunction<String> label;
+
+        Category(Function<UserStats, Number> counter, LongFunction<String> label) {
+            this.counter = counter;
+            this.label = label;
+        }
+    }
+
+    private volatile Map<Category, RankedIndex> indexes = emptyIndexes();
+    private volatile RecentMinutes recentMinutes = new RecentMinutes();
+
+    private final Object rebuildLock = new Object();
+
+    // While a rebuild is running: users with changes applied since it started, to be read again
+    // once the new rankings are in place. Null otherwise. Guarded by this.
+    private Set<UUID> changedUsers;
+
+    /**
+     * The user's rank in a category and up to {@code neighbors} users on either side of them.
+     */
+    public LeaderboardDto.UserRank getRank(UUID userId, Category category, int neighbors) {
+        RankedIndex index = indexes.get(category);
+        int around = Math.max(0, Math.min(neighbors, MAX_NEIGHBORS));
+
+        int position = index.positionOf(userId);
+        List<RankedIndex.Entry> window = position >= 0
+            ? index.range(position - around, 2 * around + 1)
+            : List.of();
+        Map<UUID, User> users = window.isEmpty()
+            ? Map.of()
+            : userRepository.findWithProfilesByIdIn(window.stream().map(RankedIndex.Entry::userId).toList()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        for (RankedIndex.Entry entry : window) {
+            User user = users.get(entry.userId());
+            if (user == null) continue;
+
+            entries.add(LeaderboardEntry.builder()
+                .userId(entry.userId())
+                .displayName(user.getDisplayName())
+                .rank(index.rankOfScore(entry.score()))
+                .value((int) Math.min(entry.score(), Integer.MAX_VALUE))
+                .label(category.label.apply(entry.score()))
+                .subjects(user.getProfile() != null ? user.getProfile().getSubjects() : null)
+                .build());
+        }
+
+        long score = index.score(userId);
+        return LeaderboardDto.UserRank.builder()
+            .category(category.name())
+            .rank(position >= 0 ? index.rankOf(userId) : null)
+            .value(score)
+            .label(category.label.apply(score))
+            .totalRanked(index.size())
+            .neighbors(entries)
+            .build();
+    }
+
+    public void addScore(UUID userId, Category category, long delta) {
+        if (delta != 0) {
+            afterCommit(userId, () -> indexes.get(category).add(userId, delta));
+        }
+    }
+
+    public void setScore(UUID userId, Category category, long score) {
+        afterCommit(userId, () -> indexes.get(category).put(userId, score));
+    }
+
+    /**
+     * Sets every user_stats category from a freshly computed row.
+     */
+    public void setScores(UserStats stats) {
+        afterCommit(stats.getUserId(), () -> putStats(indexes, stats.getUserId(), stats));
+    }
+
+    public void addStudyMinutes(UUID userId, LocalDate date, int minutes) {
+        afterCommit(userId, () -> recentMinutes.add(userId, date, minutes));
+    }
+
+    /**
+     * Study minutes per user between two dates (inclusive) within the last two weeks, for users
+     * with any. One pass over the users in memory.
+     */
+    public Map<UUID, Integer> getRecentStudyMinutes(LocalDate from, LocalDate to) {
+        return recentMinutes.totals(LocalDate.now(), from, to);
+    }
+
+    public void removeUser(UUID userId) {
+        afterCommit(userId, () -> {
+            indexes.values().forEach(index -> index.remove(userId));
+            recentMinutes.remove(userId);
+        });
+    }
+
+    /**
+     * Reloads every category from user_stats and profile streaks, skipping deleted accounts,
+     * and the recent daily minutes from activities. On failure the current rankings stay in
+     * place until the next rebuild.
+     * <p>
+     * Changes keep going to the current rankings while the tables are read, and a change may or
+     * may not be in a query's result depending on when it committed. So the users changed since
+     * the rebuild started are read again once the new rankings are swapped in, and their scores
+     * replaced rather than adjusted; users changed during that read are read once more.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedUsers = new HashSet<>();
+            }
+            try {
+                Map<Category, RankedIndex> rebuilt = emptyIndexes();
+                loadStats(rebuilt);
+                loadStreaks(rebuilt);
+                RecentMinutes recent = loadRecentMinutes();
+                synchronized (this) {
+                    indexes = rebuilt;
+                    recentMinutes = recent;
+                }
+                rereadChangedUsers();
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebuild leaderboard rankings: {}", e.getMessage());
+            } finally {
+                synchronized (this) {
+                    changedUsers = null;
+                }
+            }
+        }
+    }
+
+    private void loadStats(Map<Category, RankedIndex> rebuilt) {
+        List<UserStats> allStats = userStatsRepository.findAllActive();
+        for (UserStats stats : allStats) {
+            putStats(rebuilt, stats.getUserId(), stats);
+        }
+        log.info("Rebuilt leaderboard rankings from {} user stats rows", allStats.size());
+    }
+
+    private void loadStreaks(Map<Category, RankedIndex> rebuilt) {
+        for (Object[] row : profileRepository.findActiveStreaks()) {
+            rebuilt.get(Category.STREAK).put((UUID) row[0], ((Number) row[1]).longValue());
+        }
+    }
+
+    private RecentMinutes loadRecentMinutes() {
+        RecentMinutes recent = new RecentMinutes();
+        for (Object[] row : activityRepository.findDailyMinutesSince(recentSince())) {
+            recent.add((UUID) row[0], (LocalDate) row[1], ((Number) row[2]).intValue());
+        }
+        return recent;
+    }
+
+    private void rereadChangedUsers() {
+        for (int round = 0; round < MAX_REREAD_ROUNDS; round++) {
+            Set<UUID> userIds;
+            synchronized (this) {
+                if (changedUsers.isEmpty()) {
+                    return;
+                }
+                userIds = changedUsers;
+                changedUsers = new HashSet<>();
+            }
+            reread(userIds);
+        }
+        log.warn("Leaderboard users kept changing during a rebuild; the next reconciliation corrects them");
+    }
+
+    private void reread(Set<UUID> userIds) {
+        Map<UUID, UserStats> stats = userStatsRepository.findActiveByUserIdIn(userIds).stream()
+            .collect(Collectors.toMap(UserStats::getUserId, Function.identity()));
+        Map<UUID, Long> streaks = new HashMap<>();
+        for (Object[] row : profileRepository.findActiveStreaksByUserIdIn(userIds)) {
+            streaks.put((UUID) row[0], ((Number) row[1]).longValue());
+        }
+        List<Object[]> minutes = activityRepository.findDailyMinutesSince(recentSince(), userIds);
+
+        synchronized (this) {
+            for (UUID userId : userIds) {
+                putStats(indexes, userId, stats.get(userId));
+                indexes.get(Category.STREAK).put(userId, streaks.getOrDefault(userId, 0L));
+                recentMinutes.remove(userId);
+            }
+            for (Object[] row : minutes) {
+                recentMinutes.add((UUID) row[0], (LocalDate) row[1], ((Number) row[2]).intValue());
+            }
+        }
+    }
+
+    // Every user_stats category of one user; no row (or a deleted account) scores zero
+    private static void putStats(Map<Category, RankedIndex> indexes, UUID userId, UserStats stats) {
+        for (Category category : Category.values()) {
+            if (category.counter != null) {
+                indexes.get(category).put(userId, stats != null ? category.counter.apply(stats).longValue() : 0);
+            }
+        }
+    }
+
+    private static LocalDate recentSince() {
+        return LocalDate.now().minusDays(RecentMinutes.DAYS - 1);
+    }
+
+    private static Map<Category, RankedIndex> emptyIndexes() {
+        Map<Category, RankedIndex> indexes = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            indexes.put(category, new RankedIndex());
+        }
+        return indexes;
+    }
+
+    private synchronized void apply(UUID userId, Runnable change) {
+        change.run();
+        if (changedUsers != null) {
+            changedUsers.add(userId);
+        }
+    }
+
+    // Rankings only reflect committed changes; outside a transaction apply right away
+    private void afterCommit(UUID userId, Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, change);
+                }
+            });
+        } else {
+            apply(userId, change);
+        }
+    }
+}
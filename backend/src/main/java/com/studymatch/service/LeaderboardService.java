@@ -1,31 +1,109 @@
 package com.studymatch.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.studymatch.dto.LeaderboardDto;
 import com.studymatch.dto.LeaderboardDto.LeaderboardEntry;
 import com.studymatch.model.Profile;
 import com.studymatch.model.User;
 import com.studymatch.repository.*;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 
+/**
+ * Leaderboard categories are aggregates over every user's history, so they are computed by a
+ * background refresh rather than per request. Each refresh builds a complete new snapshot and
+ * swaps it in atomically; readers always see one consistent, already-serialized leaderboard.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class LeaderboardService {
 
     private final ProfileRepository profileRepository;
-    private final ActivityRepository activityRepository;
-    private final StudySessionRepository studySessionRepository;
-    private final MatchRepository matchRepository;
+    private final LeaderboardRankingService rankingService;
+    private final UserStatsRepository userStatsRepository;
     private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
 
     private static final int LEADERBOARD_LIMIT = 10;
 
-    public LeaderboardDto getLeaderboard() {
+    @Value("${app.leaderboard.refresh-interval-ms:300000}")
+    private long refreshIntervalMs;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * A computed leaderboard and its JSON form. Never modified after it is published.
+     */
+    public record Snapshot(LeaderboardDto leaderboard, byte[] json, LocalDateTime computedAt) {}
+
+    /**
+     * The current snapshot; computed on the spot only if no refresh has completed yet.
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (snapshot) {
+            current = snapshot.get();
+            return current != null ? current : refreshSnapshot();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.leaderboard.refresh-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        try {
+            refreshSnapshot();
+        } catch (RuntimeException e) {
+            log.warn("Leaderboard refresh failed, keeping the previous snapshot: {}", e.getMessage());
+        }
+    }
+
+    // Scheduled refreshes start before the rankings are loaded, so recompute once they are
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    private Snapshot refreshSnapshot() {
+        long start = System.currentTimeMillis();
+        LocalDateTime computedAt = LocalDateTime.now();
+        LeaderboardDto leaderboard = computeLeaderboard();
+        leaderboard.setComputedAt(computedAt);
+        leaderboard.setRefreshIntervalMs(refreshIntervalMs);
+
+        Snapshot next;
+        try {
+            next = new Snapshot(leaderboard, objectMapper.writeValueAsBytes(leaderboard), computedAt);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize leaderboard", e);
+        }
+        snapshot.set(next);
+        log.debug("Leaderboard refreshed in {} ms", System.currentTimeMillis() - start);
+        return next;
+    }
+
+    private LeaderboardDto computeLeaderboard() {
         return LeaderboardDto.builder()
                 .topStreaks(getTopStreaks())
                 .topStudyHours(getTopStudyHours())
@@ -67,133 +145,40 @@ public class LeaderboardService {
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(7);
         
-        List<Object[]> results = activityRepository.findTopStudyMinutesThisWeek(startDate, endDate);
-        
-        List<LeaderboardEntry> entries = new ArrayList<>();
-        int rank = 1;
-        for (Object[] row : results) {
-            if (rank > LEADERBOARD_LIMIT) break;
-            
-            UUID userId = (UUID) row[0];
-            Long totalMinutes = ((Number) row[1]).longValue();
-            
-            if (totalMinutes <= 0) continue;
-            
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null) continue;
-            
-            Profile profile = profileRepository.findByUserId(userId).orElse(null);
-            
+        Map<UUID, Integer> weekMinutes = rankingService.getRecentStudyMinutes(startDate, endDate);
+        List<Object[]> results = weekMinutes.entrySet().stream()
+                .sorted(Map.Entry.<UUID, Integer>comparingByValue().reversed())
+                .limit(LEADERBOARD_LIMIT)
+                .map(entry -> new Object[] {entry.getKey(), entry.getValue()})
+                .toList();
+        return toEntries(results, totalMinutes -> {
             double hours = Math.round(totalMinutes / 60.0 * 10) / 10.0;
-            entries.add(LeaderboardEntry.builder()
-                    .userId(userId)
-                    .displayName(user.getDisplayName())
-                    .rank(rank++)
-                    .value(totalMinutes.intValue())
-                    .label(hours + " hr" + (hours != 1 ? "s" : ""))
-                    .subjects(profile != null ? profile.getSubjects() : null)
-                    .build());
-        }
-        return entries;
+            return hours + " hr" + (hours != 1 ? "s" : "");
+        });
     }
 
     /**
      * Get users with the most active study days (all time)
      */
     private List<LeaderboardEntry> getMostDaysActive() {
-        List<Object[]> results = activityRepository.findMostDaysActive();
-        
-        List<LeaderboardEntry> entries = new ArrayList<>();
-        int rank = 1;
-        for (Object[] row : results) {
-            if (rank > LEADERBOARD_LIMIT) break;
-            
-            UUID userId = (UUID) row[0];
-            Long daysActive = ((Number) row[1]).longValue();
-            
-            if (daysActive <= 0) continue;
-            
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null) continue;
-            
-            Profile profile = profileRepository.findByUserId(userId).orElse(null);
-            
-            entries.add(LeaderboardEntry.builder()
-                    .userId(userId)
-                    .displayName(user.getDisplayName())
-                    .rank(rank++)
-                    .value(daysActive.intValue())
-                    .label(daysActive + " day" + (daysActive > 1 ? "s" : ""))
-                    .subjects(profile != null ? profile.getSubjects() : null)
-                    .build());
-        }
-        return entries;
+        List<Object[]> results = userStatsRepository.findTopActiveDays(topPage());
+        return toEntries(results, daysActive -> daysActive + " day" + (daysActive > 1 ? "s" : ""));
     }
 
     /**
      * Get users with the most completed study sessions
      */
     private List<LeaderboardEntry> getMostSessionsCompleted() {
-        List<Object[]> results = studySessionRepository.findMostSessionsCompleted();
-        
-        List<LeaderboardEntry> entries = new ArrayList<>();
-        int rank = 1;
-        for (Object[] row : results) {
-            if (rank > LEADERBOARD_LIMIT) break;
-            
-            UUID userId = (UUID) row[0];
-            Long sessionCount = ((Number) row[1]).longValue();
-            
-            if (sessionCount <= 0) continue;
-            
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null) continue;
-            
-            Profile profile = profileRepository.findByUserId(userId).orElse(null);
-            
-            entries.add(LeaderboardEntry.builder()
-                    .userId(userId)
-                    .displayName(user.getDisplayName())
-                    .rank(rank++)
-                    .value(sessionCount.intValue())
-                    .label(sessionCount + " session" + (sessionCount > 1 ? "s" : ""))
-                    .subjects(profile != null ? profile.getSubjects() : null)
-                    .build());
-        }
-        return entries;
+        List<Object[]> results = userStatsRepository.findTopCompletedSessions(topPage());
+        return toEntries(results, sessionCount -> sessionCount + " session" + (sessionCount > 1 ? "s" : ""));
     }
 
     /**
      * Get users with the most study partners (mutual matches)
      */
     private List<LeaderboardEntry> getMostStudyPartners() {
-        List<Object[]> results = matchRepository.findMostStudyPartners();
-        
-        List<LeaderboardEntry> entries = new ArrayList<>();
-        int rank = 1;
-        for (Object[] row : results) {
-            if (rank > LEADERBOARD_LIMIT) break;
-            
-            UUID userId = (UUID) row[0];
-            Long partnerCount = ((Number) row[1]).longValue();
-            
-            if (partnerCount <= 0) continue;
-            
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null) continue;
-            
-            Profile profile = profileRepository.findByUserId(userId).orElse(null);
-            
-            entries.add(LeaderboardEntry.builder()
-                    .userId(userId)
-                    .displayName(user.getDisplayName())
-                    .rank(rank++)
-                    .value(partnerCount.intValue())
-                    .label(partnerCount + " partner" + (partnerCount > 1 ? "s" : ""))
-                    .subjects(profile != null ? profile.getSubjects() : null)
-                    .build());
-        }
-        return entries;
+        List<Object[]> results = userStatsRepository.findTopPartnerCounts(topPage());
+        return toEntries(results, partnerCount -> partnerCount + " partner" + (partnerCount > 1 ? "s" : ""));
     }
 
     /**
@@ -205,23 +190,9 @@ public class LeaderboardService {
         LocalDate lastWeekStart = today.minusDays(14);
         LocalDate lastWeekEnd = today.minusDays(7);
 
-        // Get study minutes for this week
-        List<Object[]> thisWeekResults = activityRepository.findStudyMinutesByDateRange(thisWeekStart, today);
-        Map<UUID, Integer> thisWeekMinutes = new HashMap<>();
-        for (Object[] row : thisWeekResults) {
-            UUID userId = (UUID) row[0];
-            Integer minutes = ((Number) row[1]).intValue();
-            thisWeekMinutes.put(userId, minutes);
-        }
-
-        // Get study minutes for last week
-        List<Object[]> lastWeekResults = activityRepository.findStudyMinutesByDateRange(lastWeekStart, lastWeekEnd);
-        Map<UUID, Integer> lastWeekMinutes = new HashMap<>();
-        for (Object[] row : lastWeekResults) {
-            UUID userId = (UUID) row[0];
-            Integer minutes = ((Number) row[1]).intValue();
-            lastWeekMinutes.put(userId, minutes);
-        }
+        // Study minutes for this week and last week, from the in-memory daily window
+        Map<UUID, Integer> thisWeekMinutes = rankingService.getRecentStudyMinutes(thisWeekStart, today);
+        Map<UUID, Integer> lastWeekMinutes = rankingService.getRecentStudyMinutes(lastWeekStart, lastWeekEnd);
 
         // Calculate improvement for each user
         List<Map.Entry<UUID, Double>> improvements = new ArrayList<>();
@@ -247,22 +218,20 @@ public class LeaderboardService {
             }
         }
 
-        // Sort by improvement descending
+        // Sort by improvement descending and keep the top of the list
         improvements.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+        List<Map.Entry<UUID, Double>> top = improvements.subList(0, Math.min(LEADERBOARD_LIMIT, improvements.size()));
+        Map<UUID, User> users = findUsers(top.stream().map(Map.Entry::getKey).toList());
 
         List<LeaderboardEntry> entries = new ArrayList<>();
         int rank = 1;
-        for (Map.Entry<UUID, Double> entry : improvements) {
-            if (rank > LEADERBOARD_LIMIT) break;
-            
+        for (Map.Entry<UUID, Double> entry : top) {
             UUID userId = entry.getKey();
             Double improvement = entry.getValue();
             
-            User user = userRepository.findById(userId).orElse(null);
+            User user = users.get(userId);
             if (user == null) continue;
             
-            Profile profile = profileRepository.findByUserId(userId).orElse(null);
-            
             int lastWeek = lastWeekMinutes.getOrDefault(userId, 0);
             String label;
             if (lastWeek == 0) {
@@ -281,10 +250,52 @@ public class LeaderboardService {
                     .value(thisWeekMinutes.getOrDefault(userId, 0))
                     .percentageValue(improvement)
                     .label(label)
-                    .subjects(profile != null ? profile.getSubjects() : null)
+                    .subjects(subjectsOf(user))
                     .build());
         }
         return entries;
     }
-}
 
+    private static PageRequest topPage() {
+        return PageRequest.of(0, LEADERBOARD_LIMIT);
+    }
+
+    /**
+     * Turns ranked (userId, count) rows into entries, resolving all of their users in one query.
+     */
+    private List<LeaderboardEntry> toEntries(List<Object[]> results, LongFunction<String> label) {
+        Map<UUID, User> users = findUsers(results.stream().map(row -> (UUID) row[0]).toList());
+
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        int rank = 1;
+        for (Object[] row : results) {
+            UUID userId = (UUID) row[0];
+            long value = ((Number) row[1]).longValue();
+            
+            User user = users.get(userId);
+            if (value <= 0 || user == null) continue;
+            
+            entries.add(LeaderboardEntry.builder()
+                    .userId(userId)
+                    .displayName(user.getDisplayName())
+                    .rank(rank++)
+                    .value((int) value)
+                    .label(label.apply(value))
+                    .subjects(subjectsOf(user))
+                    .build());
+        }
+        return entries;
+    }
+
+    private Map<UUID, User> findUsers(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return userRepository.findWithProfilesByIdIn(userIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+    }
+
+    private static List<String> subjectsOf(User user) {
+        return user.getProfile() != null ? user.getProfile().getSubjects() : null;
+    }
+}
@@ -3,6 +3,7 @@ package com.studymatch.service;
 import com.studymatch.config.AIConfig;
 import com.studymatch.dto.MatchDto;
 import com.studymatch.dto.ProfileDto;
+import com.studymatch.event.MatchBecameMutualEvent;
 import com.studymatch.model.Conversation;
 import com.studymatch.model.Match;
 import com.studymatch.model.Profile;
@@ -14,6 +15,7 @@ import com.studymatch.repository.ProfileRepository;
 import com.studymatch.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +38,10 @@ public class MatchingService {
     private final NotificationService notificationService;
     private final AIMatchingService aiMatchingService;
     private final AIConfig aiConfig;
+    private final ConversationParticipantCache participantCache;
+    private final PresenceService presenceService;
+    private final UserStatsService userStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Matching weights
     private static final double SUBJECT_WEIGHT = 0.30;
@@ -163,6 +169,8 @@ public class MatchingService {
         if (match.getStatus() == Match.MatchStatus.PENDING) {
             match.setStatus(Match.MatchStatus.MUTUAL);
             match = matchRepository.save(match);
+            userStatsService.recordPartnerChange(List.of(match.getUser1().getId(), match.getUser2().getId()), 1);
+            eventPublisher.publishEvent(new MatchBecameMutualEvent(match.getId(), match.getUser1().getId(), match.getUser2().getId()));
             
             // Notify both users about the new connection
             notificationService.createMatchNotification(match.getUser1(), match.getUser2());
@@ -173,9 +181,12 @@ public class MatchingService {
             // Legacy: if somehow status was ACCEPTED, make it MUTUAL
             match.setStatus(Match.MatchStatus.MUTUAL);
             match = matchRepository.save(match);
+            userStatsService.recordPartnerChange(List.of(match.getUser1().getId(), match.getUser2().getId()), 1);
+            eventPublisher.publishEvent(new MatchBecameMutualEvent(match.getId(), match.getUser1().getId(), match.getUser2().getId()));
             notificationService.createMatchNotification(match.getUser1(), match.getUser2());
         }
         
+        presenceService.invalidateInterest(currentUser.getId(), otherUser.getId());
         Profile otherProfile = profileRepository.findByUser(otherUser).orElse(null);
 
         return toDto(match, otherUser, otherProfile);
@@ -185,9 +196,13 @@ public class MatchingService {
     public void declineMatch(UUID matchId) {
         Match match = matchRepository.findById(matchId)
             .orElseThrow(() -> new RuntimeException("Match not found"));
+        boolean wasMutual = match.getStatus() == Match.MatchStatus.MUTUAL;
         match.setStatus(Match.MatchStatus.DECLINED);
         match.setDeclinedAt(LocalDateTime.now());
         matchRepository.save(match);
+        if (wasMutual) {
+            userStatsService.recordPartnerChange(List.of(match.getUser1().getId(), match.getUser2().getId()), -1);
+        }
     }
     
     @Transactional
@@ -288,11 +303,16 @@ public class MatchingService {
         // Find and update match status to UNMATCHED
         matchRepository.findMatchBetweenUsers(currentUser.getId(), otherUserId)
             .ifPresent(match -> {
+                boolean wasMutual = match.getStatus() == Match.MatchStatus.MUTUAL;
                 match.setStatus(Match.MatchStatus.UNMATCHED);
                 match.setUnmatchedBy(currentUser);
                 matchRepository.save(match);
+                if (wasMutual) {
+                    userStatsService.recordPartnerChange(List.of(currentUser.getId(), otherUserId), -1);
+                }
                 log.info("Match status updated to UNMATCHED");
             });
+        presenceService.invalidateInterest(currentUser.getId(), otherUserId);
         
         // Handle conversation based on deleteChat preference
         if (deleteChat) {
@@ -304,6 +324,7 @@ public class MatchingService {
                         .map(User::getDisplayName).toList());
                     conversation.getParticipants().removeIf(p -> p.getId().equals(currentUser.getId()));
                     conversationRepository.save(conversation);
+                    participantCache.evict(conversation.getId());
                     log.info("Participants after: {}", conversation.getParticipants().stream()
                         .map(User::getDisplayName).toList());
                 });
@@ -6,6 +6,7 @@ import com.studymatch.model.StudySession;
 import com.studymatch.model.User;
 import com.studymatch.repository.NotificationRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -14,6 +15,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -24,6 +27,12 @@ public class NotificationService {
     private final SimpMessagingTemplate messagingTemplate;
     private final UserService userService;
 
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    // Chat messages in the same conversation within this window update one rolling notification
+    @Value("${app.notifications.message-coalesce-seconds:60}")
+    private long messageCoalesceSeconds;
+
     public Page<NotificationDto> getNotifications(int page) {
         User currentUser = userService.getCurrentUser();
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(
@@ -36,18 +45,51 @@ public class NotificationService {
         return notificationRepository.countUnread(currentUser.getId());
     }
 
+    /**
+     * Notifications created or changed after the (updatedAt, id) position, oldest change first.
+     */
+    public List<NotificationDto> getChangedAfter(UUID userId, LocalDateTime since, UUID afterId, int limit) {
+        return notificationRepository.findChangedAfter(userId, since, afterId, PageRequest.of(0, limit))
+            .stream()
+            .map(this::toDto)
+            .toList();
+    }
+
     @Transactional
     public void markAsRead(UUID notificationId) {
-        Notification notification = notificationRepository.findById(notificationId)
-            .orElseThrow(() -> new RuntimeException("Notification not found"));
-        notification.setRead(true);
-        notificationRepository.save(notification);
+        User currentUser = userService.getCurrentUser();
+        int updated = notificationRepository.markAsRead(currentUser.getId(), List.of(notificationId), LocalDateTime.now());
+        // Nothing updated is fine for a notification that was already read
+        if (updated == 0 && !notificationRepository.existsByIdAndUserId(notificationId, currentUser.getId())) {
+            throw new RuntimeException("Notification not found");
+        }
+    }
+
+    /**
+     * Marks the given notifications, or all created up to a watermark, as read in one statement.
+     */
+    @Transactional
+    public void markAsRead(NotificationDto.MarkReadRequest request) {
+        User currentUser = userService.getCurrentUser();
+        LocalDateTime now = LocalDateTime.now();
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (hasIds == (request.getUpTo() != null)) {
+            throw new IllegalArgumentException("Provide either ids or upTo");
+        }
+        if (hasIds) {
+            if (request.getIds().size() > MAX_BATCH_SIZE) {
+                throw new IllegalArgumentException("Cannot mark more than " + MAX_BATCH_SIZE + " notifications at once");
+            }
+            notificationRepository.markAsRead(currentUser.getId(), request.getIds(), now);
+        } else {
+            notificationRepository.markAsReadUpTo(currentUser.getId(), request.getUpTo(), now);
+        }
     }
 
     @Transactional
     public void markAllAsRead() {
         User currentUser = userService.getCurrentUser();
-        notificationRepository.markAllAsRead(currentUser.getId());
+        notificationRepository.markAllAsRead(currentUser.getId(), LocalDateTime.now());
     }
 
     @Transactional
@@ -84,7 +126,32 @@ public class NotificationService {
         );
     }
 
+    @Transactional
     public void createMessageNotification(User recipient, User sender, String messageContent, java.util.UUID conversationId) {
+        String link = "/chat/" + conversationId;
+
+        // Fold bursts of messages into the recipient's latest unread notification for this chat.
+        // That notification is already counted as unread on the client, so no push is needed.
+        if (messageCoalesceSeconds > 0) {
+            Optional<Notification> recent = notificationRepository
+                .findFirstByUserIdAndTypeAndLinkAndReadFalseAndUpdatedAtAfterOrderByUpdatedAtDesc(
+                    recipient.getId(),
+                    Notification.NotificationType.MESSAGE,
+                    link,
+                    LocalDateTime.now().minusSeconds(messageCoalesceSeconds)
+                );
+            if (recent.isPresent()) {
+                Notification notification = recent.get();
+                int count = (notification.getCoalescedCount() != null ? notification.getCoalescedCount() : 1) + 1;
+                notification.setCoalescedCount(count);
+                notification.setMessage(sender.getDisplayName() + " sent " + count + " messages");
+                // It now stands for the latest message, so it moves back to the top of the list
+                notification.setCreatedAt(LocalDateTime.now());
+                notificationRepository.save(notification);
+                return;
+            }
+        }
+
         // Truncate message if too long
         String preview = messageContent.length() > 50 
             ? messageContent.substring(0, 47) + "..." 
@@ -94,7 +161,7 @@ public class NotificationService {
             recipient,
             Notification.NotificationType.MESSAGE,
             sender.getDisplayName() + ": " + preview,
-            "/chat/" + conversationId
+            link
         );
     }
 
@@ -144,6 +211,7 @@ public class NotificationService {
             .link(notification.getLink())
             .read(notification.getRead())
             .createdAt(notification.getCreatedAt())
+            .updatedAt(notification.getUpdatedAt())
             .build();
     }
 }
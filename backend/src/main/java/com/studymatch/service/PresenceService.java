@@ -0,0 +1,227 @@
+package com.studymatch.service;
+
+import com.studymatch.dto.PresenceEvent;
+import com.studymatch.repository.ConversationRepository;
+import com.studymatch.repository.MatchRepository;
+import com.studymatch.repository.UserRepository;
+import com.studymatch.websocket.EventFrameSender;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks who is online from their open STOMP sessions.
+ * A user is online while at least one session is open, so extra tabs and reconnects
+ * don't flap their status. Changes are collected and sent once per fan-out interval
+ * as one diff frame per recipient, only to online partners (mutual matches and
+ * conversation partners), and written to the users table in periodic batches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceService {
+
+    private final UserRepository userRepository;
+    private final MatchRepository matchRepository;
+    private final ConversationRepository conversationRepository;
+    private final EventFrameSender eventFrameSender;
+
+    // Open session IDs per user; a user is removed once the last session closes
+    private final Map<UUID, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+
+    // Presence changes not yet flushed to the database (latest state wins)
+    private final Map<UUID, Boolean> pendingWrites = new ConcurrentHashMap<>();
+
+    // Presence changes not yet sent to partners (latest state wins)
+    private final Map<UUID, Boolean> pendingChanges = new ConcurrentHashMap<>();
+
+    // Users who just came online and still need their partners' current state
+    private final Set<UUID> pendingSnapshots = ConcurrentHashMap.newKeySet();
+
+    // Who should hear about a user's presence; evicted when matches or conversations change
+    private final Cache<UUID, Set<UUID>> interestSets = Caffeine.newBuilder()
+        .expireAfterWrite(5, TimeUnit.MINUTES)
+        .maximumSize(10_000)
+        .build();
+
+    public void sessionOpened(UUID userId, String sessionId) {
+        boolean[] cameOnline = {false};
+        sessionsByUser.compute(userId, (id, sessions) -> {
+            if (sessions == null) {
+                sessions = new HashSet<>();
+                cameOnline[0] = true;
+            }
+            sessions.add(sessionId);
+            return sessions;
+        });
+        if (cameOnline[0]) {
+            presenceChanged(userId, true);
+            pendingSnapshots.add(userId);
+        }
+    }
+
+    public void sessionClosed(UUID userId, String sessionId) {
+        boolean[] wentOffline = {false};
+        sessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(sessionId);
+            if (sessions.isEmpty()) {
+                wentOffline[0] = true;
+                return null;
+            }
+            return sessions;
+        });
+        if (wentOffline[0]) {
+            presenceChanged(userId, false);
+        }
+    }
+
+    public boolean isOnline(UUID userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    /**
+     * Drops cached interest sets after a match or conversation change between users.
+     */
+    public void invalidateInterest(UUID... userIds) {
+        interestSets.invalidateAll(List.of(userIds));
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.fanout-interval-ms:1000}")
+    public void publishPresenceDiffs() {
+        if (pendingChanges.isEmpty() && pendingSnapshots.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, PresenceDiff> diffs = new HashMap<>();
+        for (UUID userId : new ArrayList<>(pendingChanges.keySet())) {
+            Boolean online = pendingChanges.remove(userId);
+            if (online == null) {
+                continue;
+            }
+            for (UUID partnerId : interestSet(userId)) {
+                if (isOnline(partnerId)) {
+                    diffs.computeIfAbsent(partnerId, k -> new PresenceDiff()).add(userId, online);
+                }
+            }
+        }
+
+        // Newly connected users get the partners that are already online in the same frame
+        for (UUID userId : new ArrayList<>(pendingSnapshots)) {
+            pendingSnapshots.remove(userId);
+            if (!isOnline(userId)) {
+                continue;
+            }
+            for (UUID partnerId : interestSet(userId)) {
+                if (isOnline(partnerId)) {
+                    diffs.computeIfAbsent(userId, k -> new PresenceDiff()).add(partnerId, true);
+                }
+            }
+        }
+
+        diffs.forEach((recipientId, diff) ->
+            eventFrameSender.sendToUser(recipientId, "/queue/presence", diff.toEvent()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.flush-interval-ms:5000}")
+    @Transactional
+    public void flushPendingWrites() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        Map<Boolean, List<UUID>> userIdsByState = new HashMap<>();
+        for (UUID userId : new ArrayList<>(pendingWrites.keySet())) {
+            Boolean online = pendingWrites.remove(userId);
+            if (online != null) {
+                userIdsByState.computeIfAbsent(online, k -> new ArrayList<>()).add(userId);
+            }
+        }
+
+        requeueUnlessCommitted(userIdsByState);
+        LocalDateTime now = LocalDateTime.now();
+        userIdsByState.forEach((online, userIds) -> {
+            if (online) {
+                userRepository.markOnline(userIds);
+            } else {
+                userRepository.markOffline(userIds, now);
+            }
+        });
+    }
+
+    // A batch that does not commit goes back in the queue, unless the user changed state again meanwhile
+    private void requeueUnlessCommitted(Map<Boolean, List<UUID>> userIdsByState) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        userIdsByState.forEach((online, userIds) ->
+                            userIds.forEach(userId -> pendingWrites.putIfAbsent(userId, online)));
+                    }
+                }
+            });
+        }
+    }
+
+    // Sessions don't survive a restart, so nobody is online until they reconnect
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void resetOnlineFlags() {
+        int reset = userRepository.markAllOffline();
+        if (reset > 0) {
+            log.info("Marked {} users offline after restart", reset);
+        }
+    }
+
+    private void presenceChanged(UUID userId, boolean online) {
+        pendingWrites.put(userId, online);
+        pendingChanges.put(userId, online);
+    }
+
+    // Mutual matches and anyone the user shares a conversation with
+    private Set<UUID> interestSet(UUID userId) {
+        return interestSets.get(userId, id -> {
+            Set<UUID> partnerIds = new HashSet<>(conversationRepository.findPartnerIds(id));
+            matchRepository.findMutualMatches(id).forEach(match -> partnerIds.add(
+                match.getUser1().getId().equals(id) ? match.getUser2().getId() : match.getUser1().getId()));
+            return Set.copyOf(partnerIds);
+        });
+    }
+
+    /**
+     * Presence changes for one recipient within a fan-out interval.
+     */
+    private static class PresenceDiff {
+        private final Set<UUID> online = new LinkedHashSet<>();
+        private final Set<UUID> offline = new LinkedHashSet<>();
+
+        void add(UUID userId, boolean isOnline) {
+            (isOnline ? offline : online).remove(userId);
+            (isOnline ? online : offline).add(userId);
+        }
+
+        PresenceEvent toEvent() {
+            return new PresenceEvent(online, offline);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.studymatch.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Users ordered by score, highest first, in a treap whose nodes know their subtree size.
+ * Updates, rank lookups and positional reads are O(log n). Only positive scores are kept;
+ * a user whose score drops to zero leaves the index.
+ */
+final class RankedIndex {
+
+    record Entry(UUID userId, long score) {}
+
+    private static final class Node {
+        final UUID userId;
+        final long score;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(UUID userId, long score) {
+            this.userId = userId;
+            this.score = score;
+        }
+    }
+
+    private final Map<UUID, Long> scores = new HashMap<>();
+    private Node root;
+
+    synchronized void put(UUID userId, long score) {
+        Long previous = scores.remove(userId);
+        if (previous != null) {
+            root = erase(root, previous, userId);
+        }
+        if (score > 0) {
+            scores.put(userId, score);
+            Node[] parts = split(root, score, userId);
+            root = merge(merge(parts[0], new Node(userId, score)), parts[1]);
+        }
+    }
+
+    synchronized void add(UUID userId, long delta) {
+        put(userId, scores.getOrDefault(userId, 0L) + delta);
+    }
+
+    synchronized void remove(UUID userId) {
+        put(userId, 0);
+    }
+
+    synchronized long score(UUID userId) {
+        return scores.getOrDefault(userId, 0L);
+    }
+
+    synchronized int size() {
+        return scores.size();
+    }
+
+    /**
+     * Competition rank (equal scores share a rank, 1-based), or 0 if the user is not ranked.
+     */
+    synchronized int rankOf(UUID userId) {
+        Long score = scores.get(userId);
+        return score != null ? countAbove(score) + 1 : 0;
+    }
+
+    synchronized int rankOfScore(long score) {
+        return countAbove(score) + 1;
+    }
+
+    /**
+     * 0-based position of the user in index order, or -1 if the user is not ranked.
+     */
+    synchronized int positionOf(UUID userId) {
+        Long score = scores.get(userId);
+        return score != null ? countBefore(score, userId) : -1;
+    }
+
+    /**
+     * Up to count entries starting at a 0-based position.
+     */
+    synchronized List<Entry> range(int from, int count) {
+        List<Entry> entries = new ArrayList<>();
+        int end = Math.min(size(root), from + count);
+        for (int position = Math.max(0, from); position < end; position++) {
+            Node node = select(root, position);
+            entries.add(new Entry(node.userId, node.score));
+        }
+        return entries;
+    }
+
+    // Index order: higher score first, ties by user id
+    private static int compare(long score, UUID userId, Node node) {
+        int byScore = Long.compare(node.score, score);
+        return byScore != 0 ? byScore : userId.compareTo(node.userId);
+    }
+
+    private int countAbove(long score) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.score > score) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    private int countBefore(long score, UUID userId) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            int c = compare(score, userId, node);
+            if (c == 0) {
+                return count + size(node.left);
+            }
+            if (c > 0) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    private static Node select(Node node, int position) {
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position == leftSize) {
+                return node;
+            } else {
+                position -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    // Splits into nodes ordered before the key and the rest
+    private static Node[] split(Node node, long score, UUID userId) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (compare(score, userId, node) > 0) {
+            Node[] parts = split(node.right, score, userId);
+            node.right = parts[0];
+            update(node);
+            return new Node[] {node, parts[1]};
+        }
+        Node[] parts = split(node.left, score, userId);
+        node.left = parts[1];
+        update(node);
+        return new Node[] {parts[0], node};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node erase(Node node, long score, UUID userId) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(score, userId, node);
+        if (c == 0) {
+            return merge(node.left, node.right);
+        }
+        if (c < 0) {
+            node.left = erase(node.left, score, userId);
+        } else {
+            node.right = erase(node.right, score, userId);
+        }
+        update(node);
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+}
@@ -0,0 +1,93 @@
+package com.studymatch.service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Study minutes per user for each of the last {@link #DAYS} days, in a ring buffer indexed by
+ * day. A buffer rolls forward when a newer day is written, clearing the days it skips, so old
+ * days simply fall out of the window. Users whose newest day has left the window are dropped
+ * on the next read.
+ */
+final class RecentMinutes {
+
+    // Today and the 14 days before it: this week and last week, as the leaderboard compares them
+    static final int DAYS = 15;
+
+    private static final class Buffer {
+        final int[] minutes = new int[DAYS];
+        long latestDay;
+
+        Buffer(long day) {
+            this.latestDay = day;
+        }
+
+        void add(long day, int value) {
+            if (day > latestDay) {
+                for (long d = Math.max(latestDay + 1, day - DAYS + 1); d <= day; d++) {
+                    minutes[slot(d)] = 0;
+                }
+                latestDay = day;
+            } else if (day <= latestDay - DAYS) {
+                return;
+            }
+            minutes[slot(day)] += value;
+        }
+
+        int sum(long from, long to) {
+            int total = 0;
+            for (long d = Math.max(from, latestDay - DAYS + 1); d <= Math.min(to, latestDay); d++) {
+                total += minutes[slot(d)];
+            }
+            return total;
+        }
+
+        private static int slot(long day) {
+            return (int) Math.floorMod(day, (long) DAYS);
+        }
+    }
+
+    private final Map<UUID, Buffer> buffers = new ConcurrentHashMap<>();
+
+    void add(UUID userId, LocalDate date, int minutes) {
+        long day = date.toEpochDay();
+        // compute() holds the entry for the whole update, so it never races an eviction
+        buffers.compute(userId, (id, buffer) -> {
+            Buffer target = buffer != null ? buffer : new Buffer(day);
+            target.add(day, minutes);
+            return target;
+        });
+    }
+
+    void remove(UUID userId) {
+        buffers.remove(userId);
+    }
+
+    /**
+     * Minutes per user between two dates (inclusive), for users with any. The dates must lie
+     * within the window ending today.
+     */
+    Map<UUID, Integer> totals(LocalDate today, LocalDate from, LocalDate to) {
+        long oldest = today.toEpochDay() - DAYS + 1;
+        long start = Math.max(from.toEpochDay(), oldest);
+        long end = to.toEpochDay();
+
+        Map<UUID, Integer> totals = new HashMap<>();
+        for (UUID userId : buffers.keySet()) {
+            buffers.computeIfPresent(userId, (id, buffer) -> {
+                if (buffer.latestDay < oldest) {
+                    return null;
+                }
+                int total = buffer.sum(start, end);
+                if (total > 0) {
+                    totals.put(id, total);
+                }
+                return buffer;
+            });
+        }
+        return totals;
+    }
+}
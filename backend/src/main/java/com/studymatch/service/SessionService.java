@@ -1,6 +1,7 @@
 package com.studymatch.service;
 
 import com.studymatch.dto.SessionDto;
+import com.studymatch.event.SessionCompletedEvent;
 import com.studymatch.model.GroupMember;
 import com.studymatch.model.StudyGroup;
 import com.studymatch.model.StudySession;
@@ -10,13 +11,16 @@ import com.studymatch.repository.StudySessionRepository;
 import com.studymatch.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -30,6 +34,8 @@ public class SessionService {
     private final UserRepository userRepository;
     private final UserService userService;
     private final NotificationService notificationService;
+    private final UserStatsService userStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<SessionDto> getSessions() {
         User currentUser = userService.getCurrentUser();
@@ -113,6 +119,7 @@ public class SessionService {
     public SessionDto updateSession(UUID sessionId, SessionDto.UpdateRequest request) {
         StudySession session = sessionRepository.findById(sessionId)
             .orElseThrow(() -> new RuntimeException("Session not found"));
+        boolean wasCompleted = session.getStatus() == StudySession.SessionStatus.COMPLETED;
 
         if (request.getTitle() != null) {
             session.setTitle(request.getTitle());
@@ -128,6 +135,15 @@ public class SessionService {
         }
 
         session = sessionRepository.save(session);
+
+        boolean isCompleted = session.getStatus() == StudySession.SessionStatus.COMPLETED;
+        if (isCompleted != wasCompleted) {
+            Set<UUID> participantIds = participantIds(session);
+            userStatsService.recordSessionCompletion(participantIds, isCompleted ? 1 : -1);
+            if (isCompleted) {
+                eventPublisher.publishEvent(new SessionCompletedEvent(session.getId(), participantIds));
+            }
+        }
         return toDto(session);
     }
 
@@ -135,8 +151,28 @@ public class SessionService {
     public void deleteSession(UUID sessionId) {
         StudySession session = sessionRepository.findById(sessionId)
             .orElseThrow(() -> new RuntimeException("Session not found"));
+        boolean wasCompleted = session.getStatus() == StudySession.SessionStatus.COMPLETED;
         session.setStatus(StudySession.SessionStatus.CANCELLED);
         sessionRepository.save(session);
+
+        if (wasCompleted) {
+            userStatsService.recordSessionCompletion(participantIds(session), -1);
+        }
+    }
+
+    // Everyone taking part: the creator, the partner and, for group sessions, every member
+    private Set<UUID> participantIds(StudySession session) {
+        Set<UUID> participantIds = new HashSet<>();
+        participantIds.add(session.getCreator().getId());
+        if (session.getPartner() != null) {
+            participantIds.add(session.getPartner().getId());
+        }
+        if (session.getStudyGroup() != null) {
+            for (GroupMember member : session.getStudyGroup().getMembers()) {
+                participantIds.add(member.getUser().getId());
+            }
+        }
+        return participantIds;
     }
 
     private SessionDto toDto(StudySession session) {
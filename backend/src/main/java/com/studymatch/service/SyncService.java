@@ -0,0 +1,168 @@
+package com.studymatch.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studymatch.dto.MessageDto;
+import com.studymatch.dto.NotificationDto;
+import com.studymatch.dto.SyncDto;
+import com.studymatch.model.ConversationReceipt;
+import com.studymatch.model.User;
+import com.studymatch.repository.ConversationReceiptRepository;
+import com.studymatch.repository.ConversationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Incremental catch-up for reconnecting clients: new messages, receipt changes and
+ * notification changes across all of the user's conversations since an opaque cursor,
+ * in one bounded response. Clients call again with the returned cursor while hasMore is set.
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+
+    private static final int MESSAGE_LIMIT = 500;
+    private static final int NOTIFICATION_LIMIT = 100;
+
+    // Receipts and notifications are matched by update time, and a transaction still open when
+    // the previous sync ran can commit a row stamped slightly before it; re-read that window
+    private static final Duration OVERLAP = Duration.ofSeconds(5);
+
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final ConversationRepository conversationRepository;
+    private final ConversationReceiptRepository receiptRepository;
+    private final ChatService chatService;
+    private final NotificationService notificationService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Position of a client: last message seq per conversation, and where the receipt and
+     * notification change feeds were read up to.
+     */
+    record SyncCursor(
+        Map<UUID, Long> seqs,
+        LocalDateTime receiptsSince,
+        LocalDateTime notificationsSince,
+        UUID notificationsAfterId
+    ) {}
+
+    @Transactional(readOnly = true)
+    public SyncDto sync(String cursorToken) {
+        User currentUser = userService.getCurrentUser();
+        LocalDateTime watermark = LocalDateTime.now().minus(OVERLAP);
+
+        Map<UUID, Long> latestSeqs = new HashMap<>();
+        for (Object[] row : conversationRepository.findLastMessageSeqsByUserId(currentUser.getId())) {
+            latestSeqs.put((UUID) row[0], row[1] != null ? (Long) row[1] : 0L);
+        }
+
+        // First sync: the client has just loaded everything, so only hand out a cursor
+        if (cursorToken == null || cursorToken.isBlank()) {
+            return SyncDto.builder()
+                .messages(List.of())
+                .receipts(List.of())
+                .notifications(List.of())
+                .cursor(encode(new SyncCursor(latestSeqs, watermark, watermark, FIRST_ID)))
+                .hasMore(false)
+                .build();
+        }
+
+        SyncCursor cursor = decode(cursorToken);
+        boolean hasMore = false;
+
+        // Messages are read per conversation by sequence number, which commits in order.
+        // Conversations missing from the cursor are new to the client and start from zero.
+        List<MessageDto> messages = new ArrayList<>();
+        Map<UUID, Long> seqs = new HashMap<>();
+        for (Map.Entry<UUID, Long> entry : latestSeqs.entrySet()) {
+            UUID conversationId = entry.getKey();
+            long latest = entry.getValue();
+            long seen = cursor.seqs().getOrDefault(conversationId, 0L);
+
+            if (latest > seen) {
+                int room = MESSAGE_LIMIT - messages.size();
+                List<MessageDto> batch = room > 0 ? chatService.getMessagesAfter(conversationId, seen, room) : List.of();
+                messages.addAll(batch);
+                long lastReturned = batch.isEmpty() ? seen : batch.get(batch.size() - 1).getSeq();
+                if (batch.size() < room) {
+                    // Caught up; skip over numbers that never turned into messages
+                    seen = Math.max(latest, lastReturned);
+                } else {
+                    seen = lastReturned;
+                    hasMore = true;
+                }
+            }
+            seqs.put(conversationId, seen);
+        }
+
+        List<SyncDto.ReceiptChange> receipts = receiptRepository
+            .findChangedSince(currentUser.getId(), cursor.receiptsSince())
+            .stream()
+            .map(SyncService::toReceiptChange)
+            .toList();
+
+        List<NotificationDto> notifications = notificationService.getChangedAfter(
+            currentUser.getId(), cursor.notificationsSince(), cursor.notificationsAfterId(), NOTIFICATION_LIMIT);
+        LocalDateTime notificationsSince = watermark;
+        UUID notificationsAfterId = FIRST_ID;
+        if (notifications.size() == NOTIFICATION_LIMIT) {
+            // Resume right after the last one returned
+            NotificationDto last = notifications.get(notifications.size() - 1);
+            notificationsSince = last.getUpdatedAt();
+            notificationsAfterId = last.getId();
+            hasMore = true;
+        }
+
+        return SyncDto.builder()
+            .messages(messages)
+            .receipts(receipts)
+            .notifications(notifications)
+            .cursor(encode(new SyncCursor(seqs, watermark, notificationsSince, notificationsAfterId)))
+            .hasMore(hasMore)
+            .build();
+    }
+
+    private static SyncDto.ReceiptChange toReceiptChange(ConversationReceipt receipt) {
+        return SyncDto.ReceiptChange.builder()
+            .conversationId(receipt.getConversation().getId())
+            .userId(receipt.getUser().getId())
+            .deliveredSeq(receipt.getDeliveredSeq())
+            .readSeq(receipt.getReadSeq())
+            .deliveredAt(receipt.getDeliveredAt())
+            .readAt(receipt.getReadAt())
+            .build();
+    }
+
+    private String encode(SyncCursor cursor) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(cursor));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create sync cursor", e);
+        }
+    }
+
+    private SyncCursor decode(String token) {
+        try {
+            SyncCursor cursor = objectMapper.readValue(Base64.getUrlDecoder().decode(token), SyncCursor.class);
+            if (cursor.seqs() == null || cursor.receiptsSince() == null
+                    || cursor.notificationsSince() == null || cursor.notificationsAfterId() == null) {
+                throw new RuntimeException("Invalid sync cursor");
+            }
+            return cursor;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid sync cursor");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.studymatch.service;
+
+import com.studymatch.dto.TypingEvent;
+import com.studymatch.websocket.EventFrameSender;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Relays typing indicators without touching the database.
+ * "Typing" frames are forwarded at most once per throttle interval per user and
+ * conversation, and a "stopped typing" frame is sent when the client says so or
+ * when no typing frame arrives within the expiry window (e.g. the tab was closed).
+ */
+@Service
+@RequiredArgsConstructor
+public class TypingIndicatorService {
+
+    private final ConversationParticipantCache participantCache;
+    private final EventFrameSender eventFrameSender;
+
+    @Value("${app.chat.typing.throttle-ms:2000}")
+    private long throttleMs;
+
+    @Value("${app.chat.typing.expiry-ms:6000}")
+    private long expiryMs;
+
+    private final Map<TypingKey, TypingState> activeTypers = new ConcurrentHashMap<>();
+
+    public void onTyping(UUID userId, UUID conversationId, boolean isTyping) {
+        Set<UUID> participantIds = participantCache.getParticipantIds(conversationId);
+        if (!participantIds.contains(userId)) {
+            return;
+        }
+
+        TypingKey key = new TypingKey(userId, conversationId);
+        if (!isTyping) {
+            if (activeTypers.remove(key) != null) {
+                forward(key, participantIds, false);
+            }
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        TypingState state = activeTypers.compute(key, (k, previous) ->
+            previous == null || now - previous.forwardedAt() >= throttleMs
+                ? new TypingState(now, now)
+                : new TypingState(previous.forwardedAt(), now));
+        if (state.forwardedAt() == now) {
+            forward(key, participantIds, true);
+        }
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void expireIdleTypers() {
+        long cutoff = System.currentTimeMillis() - expiryMs;
+        activeTypers.forEach((key, state) -> {
+            if (state.lastSeenAt() < cutoff && activeTypers.remove(key, state)) {
+                forward(key, participantCache.getParticipantIds(key.conversationId()), false);
+            }
+        });
+    }
+
+    private void forward(TypingKey key, Set<UUID> participantIds, boolean isTyping) {
+        TypingEvent event = new TypingEvent(key.conversationId(), key.userId(), isTyping);
+        for (UUID participantId : participantIds) {
+            if (!participantId.equals(key.userId())) {
+                eventFrameSender.sendToUser(participantId, "/queue/typing", event);
+            }
+        }
+    }
+
+    private record TypingKey(UUID userId, UUID conversationId) {}
+
+    private record TypingState(long forwardedAt, long lastSeenAt) {}
+}
@@ -32,6 +32,8 @@ public class UserService {
     private final ProfileRepository profileRepository;
     private final MatchRepository matchRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserStatsService userStatsService;
+    private final LeaderboardRankingService rankingService;
 
     public User getCurrentUser() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -119,17 +121,6 @@ public class UserService {
             .build();
     }
 
-    @Transactional
-    public void updateOnlineStatus(UUID userId, boolean isOnline) {
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setIsOnline(isOnline);
-        if (!isOnline) {
-            user.setLastSeen(LocalDateTime.now());
-        }
-        userRepository.save(user);
-    }
-
     @Transactional
     public AuthResponse.UserDto updateUser(String displayName) {
         User user = getCurrentUser();
@@ -174,6 +165,14 @@ public class UserService {
     @Transactional
     public void deleteAccount() {
         User user = getCurrentUser();
+
+        // Mutual matches with a deleted account no longer count as partners
+        List<UUID> partnerIds = matchRepository.findMutualMatches(user.getId()).stream()
+            .map(match -> match.getUser1().getId().equals(user.getId()) ? match.getUser2().getId() : match.getUser1().getId())
+            .toList();
+        userStatsService.recordPartnerChange(partnerIds, -1);
+        rankingService.removeUser(user.getId());
+
         user.setDeleted(true);
         user.setDeletedAt(LocalDateTime.now());
         user.setIsOnline(false);
@@ -0,0 +1,290 @@
+package com.studymatch.service;
+
+import com.studymatch.model.Activity;
+import com.studymatch.model.UserStats;
+import com.studymatch.repository.ActivityRepository;
+import com.studymatch.repository.MatchRepository;
+import com.studymatch.repository.StudySessionRepository;
+import com.studymatch.repository.UserRepository;
+import com.studymatch.repository.UserStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the per-user counters in user_stats. Writers report each change as a delta, applied with
+ * a single UPDATE; a user without a row gets one computed from the source tables instead, which
+ * already include the change. A nightly job recomputes every row and corrects any drift.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStatsService {
+
+    private static final LocalTime EARLY_BIRD_BEFORE = LocalTime.of(8, 0);
+    private static final LocalTime NIGHT_OWL_AFTER = LocalTime.of(22, 0);
+    private static final int RECONCILE_BATCH_SIZE = 200;
+
+    private final UserStatsRepository userStatsRepository;
+    private final ActivityRepository activityRepository;
+    private final StudySessionRepository sessionRepository;
+    private final MatchRepository matchRepository;
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final LeaderboardRankingService rankingService;
+
+    public record StatsWithStreak(UserStats stats, int streak) {}
+
+    /**
+     * The user's counters as a single-row lookup.
+     */
+    @Transactional
+    public UserStats getStats(UUID userId) {
+        return userStatsRepository.findById(userId).orElseGet(() -> createFromSource(userId));
+    }
+
+    /**
+     * The user's counters and current streak, read together in one query.
+     */
+    @Transactional
+    public StatsWithStreak getStatsWithStreak(UUID userId) {
+        List<Object[]> rows = userStatsRepository.findWithStreak(userId);
+        if (rows.isEmpty()) {
+            createFromSource(userId);
+            rows = userStatsRepository.findWithStreak(userId);
+        }
+        Object[] row = rows.get(0);
+        return new StatsWithStreak((UserStats) row[0], row[1] != null ? ((Number) row[1]).intValue() : 0);
+    }
+
+    /**
+     * Records minutes added to an activity day and returns the user's activity days including it.
+     * Early bird and night owl follow the day's latest start time, so previousStartTime (null for
+     * a new day) is what the day counted as before.
+     */
+    @Transactional
+    public ActivityDays recordActivity(UUID userId, Activity activity, boolean newDay, LocalTime previousStartTime, int minutes) {
+        int earlyBird = flag(isEarlyBird(activity.getStartTime())) - flag(isEarlyBird(previousStartTime));
+        int nightOwl = flag(isNightOwl(activity.getStartTime())) - flag(isNightOwl(previousStartTime));
+        int weekend = flag(newDay && isWeekend(activity.getActivityDate()));
+
+        int updated = userStatsRepository.addActivity(
+            userId, minutes, flag(newDay), weekend, earlyBird, nightOwl, LocalDateTime.now());
+        rankingService.addStudyMinutes(userId, activity.getActivityDate(), minutes);
+        if (updated == 0) {
+            UserStats stats = createFromSource(userId);
+            return ActivityDays.of(stats.getActivityDaysFrom(), stats.getActivityDays());
+        }
+        rankingService.addScore(userId, LeaderboardRankingService.Category.STUDY_MINUTES, minutes);
+        rankingService.addScore(userId, LeaderboardRankingService.Category.DAYS_ACTIVE, flag(newDay));
+        return markActive(userId, activity.getActivityDate());
+    }
+
+    // The counter UPDATE before this holds the row lock, so the bitmap can't change in between
+    private ActivityDays markActive(UUID userId, LocalDate day) {
+        Object[] row = userStatsRepository.findActivityDays(userId).get(0);
+        boolean legacy = row[1] == null;
+        ActivityDays days = legacy
+            ? ActivityDays.of(activityRepository.findActivityDates(userId))
+            : ActivityDays.of((LocalDate) row[0], (byte[]) row[1]);
+        ActivityDays marked = days.with(day);
+        if (legacy || marked != days) {
+            userStatsRepository.setActivityDays(userId, marked.from(), marked.bits());
+        }
+        return marked;
+    }
+
+    /**
+     * Records a session entering (+1) or leaving (-1) COMPLETED for everyone taking part in it.
+     */
+    @Transactional
+    public void recordSessionCompletion(Collection<UUID> participantIds, int delta) {
+        LocalDateTime now = LocalDateTime.now();
+        for (UUID userId : participantIds) {
+            if (userStatsRepository.addCompletedSessions(userId, delta, now) == 0) {
+                createFromSource(userId);
+            } else {
+                rankingService.addScore(userId, LeaderboardRankingService.Category.SESSIONS_COMPLETED, delta);
+            }
+        }
+    }
+
+    /**
+     * Records mutual matches gained (+1) or lost (-1) by each of the given users.
+     */
+    @Transactional
+    public void recordPartnerChange(Collection<UUID> userIds, int delta) {
+        LocalDateTime now = LocalDateTime.now();
+        for (UUID userId : userIds) {
+            if (userStatsRepository.addPartners(userId, delta, now) == 0) {
+                createFromSource(userId);
+            } else {
+                rankingService.addScore(userId, LeaderboardRankingService.Category.STUDY_PARTNERS, delta);
+            }
+        }
+    }
+
+    // Fresh installs and upgrades start with an empty table; fill it so leaderboards see everyone
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onApplicationReady() {
+        if (userStatsRepository.count() == 0 && userRepository.count() > 0) {
+            reconcile();
+        } else {
+            rankingService.rebuild();
+        }
+    }
+
+    /**
+     * Recomputes every user's counters from the source tables, creating missing rows and
+     * correcting drifted ones.
+     */
+    @Scheduled(cron = "${app.stats.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int checked = 0;
+        int corrected = 0;
+        int page = 0;
+        List<UUID> userIds;
+        do {
+            userIds = userRepository.findAllIds(PageRequest.of(page++, RECONCILE_BATCH_SIZE));
+            List<UUID> batch = userIds;
+            try {
+                Integer changed = transaction.execute(status -> reconcileBatch(batch));
+                corrected += changed != null ? changed : 0;
+                checked += batch.size();
+            } catch (RuntimeException e) {
+                log.warn("Failed to reconcile user stats for {} users: {}", batch.size(), e.getMessage());
+            }
+        } while (userIds.size() == RECONCILE_BATCH_SIZE);
+
+        log.info("Reconciled user stats for {} users, {} corrected", checked, corrected);
+        rankingService.rebuild();
+    }
+
+    private int reconcileBatch(List<UUID> userIds) {
+        // Locking the rows first makes concurrent counter updates wait, so none of them
+        // lands between reading the source tables and writing the recomputed values
+        Map<UUID, UserStats> existing = userStatsRepository.findAllForUpdate(userIds).stream()
+            .collect(Collectors.toMap(UserStats::getUserId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        int corrected = 0;
+        for (UUID userId : userIds) {
+            UserStats expected = computeFromSource(userId);
+            UserStats stats = existing.get(userId);
+            if (stats == null) {
+                expected.setReconciledAt(now);
+                userStatsRepository.save(expected);
+                continue;
+            }
+
+            // Expired sessions are deleted, so the table can only undercount completed sessions
+            expected.setCompletedSessions(Math.max(expected.getCompletedSessions(), stats.getCompletedSessions()));
+            if (!sameCounters(stats, expected)) {
+                log.debug("Correcting user stats for {}", userId);
+                copyCounters(expected, stats);
+                stats.setUpdatedAt(now);
+                corrected++;
+            }
+            stats.setReconciledAt(now);
+        }
+        return corrected;
+    }
+
+    private UserStats createFromSource(UUID userId) {
+        UserStats stats = computeFromSource(userId);
+        stats.setReconciledAt(LocalDateTime.now());
+        stats = userStatsRepository.save(stats);
+        rankingService.setScores(stats);
+        return stats;
+    }
+
+    private UserStats computeFromSource(UUID userId) {
+        List<Activity> activities = activityRepository.findRecentActivities(userId);
+
+        long totalMinutes = 0;
+        int earlyBirdDays = 0;
+        int nightOwlDays = 0;
+        Set<LocalDate> dates = new HashSet<>();
+        for (Activity activity : activities) {
+            totalMinutes += activity.getStudyMinutes() != null ? activity.getStudyMinutes() : 0;
+            dates.add(activity.getActivityDate());
+            earlyBirdDays += flag(isEarlyBird(activity.getStartTime()));
+            nightOwlDays += flag(isNightOwl(activity.getStartTime()));
+        }
+        ActivityDays days = ActivityDays.of(dates);
+
+        return UserStats.builder()
+            .userId(userId)
+            .totalMinutes(totalMinutes)
+            .activeDays(days.count())
+            .weekendDays(days.weekendCount())
+            .earlyBirdDays(earlyBirdDays)
+            .nightOwlDays(nightOwlDays)
+            .activityDaysFrom(days.from())
+            .activityDays(days.bits())
+            .completedSessions(sessionRepository.countCompletedSessionsByUserId(userId))
+            .partnerCount(matchRepository.countMutualMatches(userId))
+            .updatedAt(LocalDateTime.now())
+            .build();
+    }
+
+    private static boolean sameCounters(UserStats a, UserStats b) {
+        return Objects.equals(a.getTotalMinutes(), b.getTotalMinutes())
+            && Objects.equals(a.getActiveDays(), b.getActiveDays())
+            && Objects.equals(a.getWeekendDays(), b.getWeekendDays())
+            && Objects.equals(a.getEarlyBirdDays(), b.getEarlyBirdDays())
+            && Objects.equals(a.getNightOwlDays(), b.getNightOwlDays())
+            && Objects.equals(a.getCompletedSessions(), b.getCompletedSessions())
+            && Objects.equals(a.getPartnerCount(), b.getPartnerCount())
+            && Objects.equals(a.getActivityDaysFrom(), b.getActivityDaysFrom())
+            && Arrays.equals(a.getActivityDays(), b.getActivityDays());
+    }
+
+    private static void copyCounters(UserStats from, UserStats to) {
+        to.setTotalMinutes(from.getTotalMinutes());
+        to.setActiveDays(from.getActiveDays());
+        to.setWeekendDays(from.getWeekendDays());
+        to.setEarlyBirdDays(from.getEarlyBirdDays());
+        to.setNightOwlDays(from.getNightOwlDays());
+        to.setCompletedSessions(from.getCompletedSessions());
+        to.setPartnerCount(from.getPartnerCount());
+        to.setActivityDaysFrom(from.getActivityDaysFrom());
+        to.setActivityDays(from.getActivityDays());
+    }
+
+    private static boolean isEarlyBird(LocalTime startTime) {
+        return startTime != null && startTime.isBefore(EARLY_BIRD_BEFORE);
+    }
+
+    private static boolean isNightOwl(LocalTime startTime) {
+        return startTime != null && startTime.isAfter(NIGHT_OWL_AFTER);
+    }
+
+    private static boolean isWeekend(LocalDate date) {
+        DayOfWeek day = date.getDayOfWeek();
+        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+    }
+
+    private static int flag(boolean value) {
+        return value ? 1 : 0;
+    }
+}
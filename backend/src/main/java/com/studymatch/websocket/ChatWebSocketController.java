@@ -1,68 +1,63 @@
 package com.studymatch.websocket;
 
 import com.studymatch.dto.MessageDto;
-import com.studymatch.model.User;
-import com.studymatch.repository.UserRepository;
 import com.studymatch.service.ChatService;
-import com.studymatch.service.UserService;
+import com.studymatch.service.PresenceService;
+import com.studymatch.service.TypingIndicatorService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 
-import java.security.Principal;
 import java.util.Map;
-import java.util.UUID;
 
 @Controller
 @RequiredArgsConstructor
 public class ChatWebSocketController {
 
     private final ChatService chatService;
-    private final UserService userService;
-    private final UserRepository userRepository;
+    private final PresenceService presenceService;
     private final SimpMessagingTemplate messagingTemplate;
-    
-    // Helper to get user from Principal (WebSocket-safe, doesn't use SecurityContextHolder)
-    private User getUserFromPrincipal(Principal principal) {
-        if (principal instanceof Authentication auth) {
-            Object p = auth.getPrincipal();
-            if (p instanceof UserDetails userDetails) {
-                return userRepository.findByEmail(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            }
-        }
-        throw new RuntimeException("Cannot get user from principal");
-    }
+    private final TypingIndicatorService typingIndicatorService;
 
     @MessageMapping("/chat.send")
-    public void sendMessage(@Payload MessageDto.SendRequest request, Principal principal) {
-        chatService.sendMessage(request.getConversationId(), request.getContent());
+    public void sendMessage(@Payload MessageDto.SendRequest request, StompUser user) {
+        chatService.sendMessageAs(user.id(), request.getConversationId(), request.getContent());
     }
 
     @MessageMapping("/chat.typing")
-    public void typing(@Payload MessageDto.TypingRequest request, Principal principal) {
-        chatService.sendTypingIndicator(request.getConversationId(), request.getIsTyping());
+    public void typing(@Payload MessageDto.TypingRequest request, StompUser user) {
+        typingIndicatorService.onTyping(
+            user.id(),
+            request.getConversationId(),
+            Boolean.TRUE.equals(request.getIsTyping())
+        );
     }
 
+    // Report failed sends (e.g. unmatched or unknown conversation) back to the sender
+    @MessageExceptionHandler
+    public void handleException(RuntimeException e, SimpMessageHeaderAccessor headerAccessor) {
+        Map<String, Object> sessionAttributes = headerAccessor.getSessionAttributes();
+        if (sessionAttributes != null && sessionAttributes.get(StompUser.SESSION_ATTRIBUTE) instanceof StompUser user) {
+            messagingTemplate.convertAndSendToUser(
+                user.id().toString(),
+                "/queue/errors",
+                Map.of("error", e.getMessage() != null ? e.getMessage() : "Request failed")
+            );
+        }
+    }
+
+    // Explicit presence frames act as heartbeats on top of connect/disconnect tracking,
+    // e.g. a tab announcing it is going away before the socket actually closes
     @MessageMapping("/presence")
-    public void updatePresence(@Payload Map<String, Boolean> payload, Principal principal) {
-        boolean online = payload.getOrDefault("online", false);
-        
-        // Use Principal to get user (WebSocket-safe, doesn't use SecurityContextHolder)
-        User user = getUserFromPrincipal(principal);
-        UUID userId = user.getId();
-        
-        userService.updateOnlineStatus(userId, online);
-        
-        // Broadcast presence update
-        messagingTemplate.convertAndSend("/topic/presence", Map.of(
-            "userId", userId,
-            "online", online
-        ));
+    public void updatePresence(@Payload Map<String, Boolean> payload, StompUser user, SimpMessageHeaderAccessor headerAccessor) {
+        if (payload.getOrDefault("online", false)) {
+            presenceService.sessionOpened(user.id(), headerAccessor.getSessionId());
+        } else {
+            presenceService.sessionClosed(user.id(), headerAccessor.getSessionId());
+        }
     }
 }
-
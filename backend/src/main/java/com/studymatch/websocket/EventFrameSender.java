@@ -0,0 +1,77 @@
+package com.studymatch.websocket;
+
+import com.studymatch.dto.CompactFrame;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends typing, delivery and presence events to a user's queue.
+ *
+ * Clients opt in to short-key frames with an {@code x-frame-encoding: compact} CONNECT header.
+ * A user's queue is shared by all of their sessions, so frames go out compact only while every
+ * open session of the recipient opted in. Compact bodies use keys that never appear in the
+ * verbose form, so clients tell them apart without a per-frame header.
+ */
+@Component
+@RequiredArgsConstructor
+public class EventFrameSender {
+
+    public static final String ENCODING_HEADER = "x-frame-encoding";
+    public static final String COMPACT = "compact";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    // Open sessions per user that still expect the verbose form
+    private final Map<UUID, Set<String>> verboseSessionsByUser = new ConcurrentHashMap<>();
+
+    public void sendToUser(UUID userId, String destination, CompactFrame event) {
+        Object payload = verboseSessionsByUser.containsKey(userId) ? event : event.toCompact();
+        messagingTemplate.convertAndSendToUser(userId.toString(), destination, payload);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        // The CONNECTED frame carries the original CONNECT message with its native headers
+        Message<?> connectMessage = (Message<?>) event.getMessage().getHeaders()
+            .get(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        if (connectMessage == null) {
+            return;
+        }
+        StompUser user = stompUser(connectMessage);
+        String encoding = StompHeaderAccessor.wrap(connectMessage).getFirstNativeHeader(ENCODING_HEADER);
+        if (user != null && !COMPACT.equals(encoding)) {
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+            verboseSessionsByUser.computeIfAbsent(user.id(), k -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        StompUser user = stompUser(event.getMessage());
+        if (user != null) {
+            verboseSessionsByUser.computeIfPresent(user.id(), (id, sessionIds) -> {
+                sessionIds.remove(event.getSessionId());
+                return sessionIds.isEmpty() ? null : sessionIds;
+            });
+        }
+    }
+
+    private static StompUser stompUser(Message<?> message) {
+        Map<String, Object> sessionAttributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        return sessionAttributes != null && sessionAttributes.get(StompUser.SESSION_ATTRIBUTE) instanceof StompUser user
+            ? user
+            : null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.studymatch.websocket;
+
+import com.studymatch.service.PresenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+
+/**
+ * Feeds STOMP session lifecycle events into the presence registry.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceEventListener {
+
+    private final PresenceService presenceService;
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        // The CONNECTED frame carries the original CONNECT message, which holds the session attributes
+        Message<?> connectMessage = (Message<?>) event.getMessage().getHeaders()
+            .get(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        StompUser user = stompUser(connectMessage != null ? connectMessage : event.getMessage());
+        if (user != null) {
+            presenceService.sessionOpened(user.id(), SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders()));
+        }
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        StompUser user = stompUser(event.getMessage());
+        if (user != null) {
+            presenceService.sessionClosed(user.id(), event.getSessionId());
+        }
+    }
+
+    private static StompUser stompUser(Message<?> message) {
+        Map<String, Object> sessionAttributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        return sessionAttributes != null && sessionAttributes.get(StompUser.SESSION_ATTRIBUTE) instanceof StompUser user
+            ? user
+            : null;
+    }
+}
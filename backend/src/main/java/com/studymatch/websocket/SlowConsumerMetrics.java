@@ -0,0 +1,54 @@
+package com.studymatch.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+/**
+ * Counts sessions closed because the client could not keep up with outbound frames
+ * (send buffer or send time limit exceeded), to help size WebSocket nodes.
+ */
+@Component
+@Slf4j
+public class SlowConsumerMetrics implements WebSocketHandlerDecoratorFactory {
+
+    private static final String ACTIVE_ATTRIBUTE = "slowConsumerMetrics.active";
+
+    private final Counter slowConsumerDisconnects;
+
+    public SlowConsumerMetrics(MeterRegistry meterRegistry) {
+        this.slowConsumerDisconnects = Counter.builder("websocket.sessions.slow_consumer_disconnects")
+            .description("Sessions closed for exceeding the send buffer or send time limit")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                session.getAttributes().putIfAbsent(ACTIVE_ATTRIBUTE, Boolean.TRUE);
+                super.handleMessage(session, message);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                // Send limit overflows close with this status; so do sessions that never sent a
+                // first frame, which are told apart by not having handled any message yet
+                if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus)
+                        && session.getAttributes().containsKey(ACTIVE_ATTRIBUTE)) {
+                    slowConsumerDisconnects.increment();
+                    log.warn("Closed slow WebSocket consumer {}: {}", session.getId(), closeStatus.getReason());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.studymatch.websocket;
+
+import com.studymatch.model.User;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Identity of the user behind a STOMP session. Resolved once at CONNECT and kept in
+ * the session attributes, so message handlers never look the user up per frame.
+ * Declare it as a @MessageMapping parameter to receive it.
+ */
+public record StompUser(UUID id, String email, String displayName, User.UserRole role) implements Serializable {
+
+    public static final String SESSION_ATTRIBUTE = "stompUser";
+
+    public static StompUser of(User user) {
+        return new StompUser(user.getId(), user.getEmail(), user.getDisplayName(), user.getRole());
+    }
+}
@@ -0,0 +1,29 @@
+package com.studymatch.websocket;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.invocation.HandlerMethodArgumentResolver;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+
+import java.util.Map;
+
+/**
+ * Supplies the {@link StompUser} stored on the STOMP session at CONNECT to
+ * @MessageMapping methods that declare it as a parameter.
+ */
+public class StompUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return StompUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, Message<?> message) {
+        Map<String, Object> sessionAttributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        if (sessionAttributes != null && sessionAttributes.get(StompUser.SESSION_ATTRIBUTE) instanceof StompUser user) {
+            return user;
+        }
+        throw new RuntimeException("WebSocket session is not authenticated");
+    }
+}
@@ -0,0 +1,156 @@
+package com.studymatch.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Video call rooms and who is in them, keyed by STOMP session so that tabs which
+ * crash or lose their connection are removed on disconnect instead of lingering.
+ * As a backstop for missed disconnects, rooms without signaling activity for the configured
+ * TTL lose the sessions that are no longer connected; a call that simply runs quiet keeps its room.
+ */
+@Component
+@Slf4j
+public class VideoRoomRegistry {
+
+    public record Participant(UUID userId, String displayName) {}
+
+    public record Departure(String roomId, Participant participant) {}
+
+    private static class Room {
+        final Map<String, Participant> participantsBySession = new ConcurrentHashMap<>();
+        volatile long lastActivityAt = System.currentTimeMillis();
+    }
+
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+    // Rooms joined per STOMP session, for disconnect cleanup
+    private final Map<String, Set<String>> roomIdsBySession = new ConcurrentHashMap<>();
+
+    private final SimpUserRegistry simpUserRegistry;
+
+    @Value("${app.video.room-ttl-minutes:240}")
+    private long roomTtlMinutes;
+
+    public VideoRoomRegistry(MeterRegistry meterRegistry, SimpUserRegistry simpUserRegistry) {
+        this.simpUserRegistry = simpUserRegistry;
+        Gauge.builder("video.rooms.active", rooms, Map::size)
+            .description("Video rooms with at least one participant")
+            .register(meterRegistry);
+        Gauge.builder("video.rooms.participants", this, VideoRoomRegistry::participantCount)
+            .description("Participants across all video rooms")
+            .register(meterRegistry);
+    }
+
+    public void join(String roomId, String sessionId, Participant participant) {
+        rooms.compute(roomId, (id, room) -> {
+            Room target = room != null ? room : new Room();
+            target.participantsBySession.put(sessionId, participant);
+            target.lastActivityAt = System.currentTimeMillis();
+            return target;
+        });
+        roomIdsBySession.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).add(roomId);
+    }
+
+    public Optional<Participant> leave(String roomId, String sessionId) {
+        Participant[] removed = {null};
+        rooms.computeIfPresent(roomId, (id, room) -> {
+            removed[0] = room.participantsBySession.remove(sessionId);
+            return room.participantsBySession.isEmpty() ? null : room;
+        });
+        roomIdsBySession.computeIfPresent(sessionId, (id, roomIds) -> {
+            roomIds.remove(roomId);
+            return roomIds.isEmpty() ? null : roomIds;
+        });
+        return Optional.ofNullable(removed[0]);
+    }
+
+    /**
+     * Removes a closed session from every room it joined.
+     */
+    public List<Departure> leaveAll(String sessionId) {
+        Set<String> roomIds = roomIdsBySession.remove(sessionId);
+        List<Departure> departures = new ArrayList<>();
+        if (roomIds != null) {
+            for (String roomId : roomIds) {
+                leave(roomId, sessionId).ifPresent(p -> departures.add(new Departure(roomId, p)));
+            }
+        }
+        return departures;
+    }
+
+    public boolean isMember(String roomId, UUID userId) {
+        Room room = rooms.get(roomId);
+        return room != null && room.participantsBySession.values().stream()
+            .anyMatch(p -> p.userId().equals(userId));
+    }
+
+    /**
+     * Distinct users in a room; a user with the call open in several tabs appears once.
+     */
+    public Set<UUID> memberIds(String roomId) {
+        Room room = rooms.get(roomId);
+        if (room == null) {
+            return Set.of();
+        }
+        return room.participantsBySession.values().stream()
+            .map(Participant::userId)
+            .collect(Collectors.toSet());
+    }
+
+    public void touch(String roomId) {
+        Room room = rooms.get(roomId);
+        if (room != null) {
+            room.lastActivityAt = System.currentTimeMillis();
+        }
+    }
+
+    public int participantCount() {
+        return rooms.values().stream().mapToInt(room -> room.participantsBySession.size()).sum();
+    }
+
+    @Scheduled(fixedRate = 300000) // Every 5 minutes
+    public void expireIdleRooms() {
+        long cutoff = System.currentTimeMillis() - roomTtlMinutes * 60_000;
+        Set<String> connectedSessionIds = null;
+        for (Map.Entry<String, Room> entry : rooms.entrySet()) {
+            String roomId = entry.getKey();
+            Room room = entry.getValue();
+            if (room.lastActivityAt >= cutoff) {
+                continue;
+            }
+            if (connectedSessionIds == null) {
+                connectedSessionIds = simpUserRegistry.getUsers().stream()
+                    .flatMap(user -> user.getSessions().stream())
+                    .map(SimpSession::getId)
+                    .collect(Collectors.toSet());
+            }
+
+            // Leaving with the last session drops the room; a connected session keeps it
+            int stale = 0;
+            for (String sessionId : room.participantsBySession.keySet()) {
+                if (!connectedSessionIds.contains(sessionId) && leave(roomId, sessionId).isPresent()) {
+                    stale++;
+                }
+            }
+            if (rooms.get(roomId) != room) {
+                log.info("Expired idle video room {} with {} participants", roomId, stale);
+            }
+        }
+    }
+}
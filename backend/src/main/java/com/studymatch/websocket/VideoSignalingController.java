@@ -1,42 +1,27 @@
 package com.studymatch.websocket;
 
-import com.studymatch.model.User;
-import com.studymatch.repository.UserRepository;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
-import java.security.Principal;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
 
 @Controller
 @RequiredArgsConstructor
 public class VideoSignalingController {
 
     private final SimpMessagingTemplate messagingTemplate;
-    private final UserRepository userRepository;
-    
-    // Helper to get user from Principal (WebSocket-safe, doesn't use SecurityContextHolder)
-    private User getUserFromPrincipal(Principal principal) {
-        if (principal instanceof Authentication auth) {
-            Object p = auth.getPrincipal();
-            if (p instanceof UserDetails userDetails) {
-                return userRepository.findByEmail(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            }
-        }
-        throw new RuntimeException("Cannot get user from principal");
-    }
-    
-    // Track users in each room
-    private final Map<String, ConcurrentHashMap<String, String>> roomUsers = new ConcurrentHashMap<>();
+    private final VideoRoomRegistry roomRegistry;
 
     @Data
     public static class SignalMessage {
@@ -48,67 +33,112 @@ public class VideoSignalingController {
     }
 
     @MessageMapping("/video.join/{roomId}")
-    public void joinRoom(@DestinationVariable String roomId, Principal principal) {
-        User user = getUserFromPrincipal(principal);
-        String userId = user.getId().toString();
-        String displayName = user.getDisplayName();
+    public void joinRoom(@DestinationVariable String roomId, StompUser user, SimpMessageHeaderAccessor headerAccessor) {
+        String userId = user.id().toString();
+        String displayName = user.displayName();
         
-        // Add user to room
-        roomUsers.computeIfAbsent(roomId, k -> new ConcurrentHashMap<>()).put(userId, displayName);
+        // Add this session to the room
+        roomRegistry.join(roomId, headerAccessor.getSessionId(), new VideoRoomRegistry.Participant(user.id(), displayName));
         
-        // Notify others in the room
-        messagingTemplate.convertAndSend("/topic/video/" + roomId, Map.of(
+        // Notify others in the room; they start the offer/answer exchange with the newcomer
+        sendToPeers(roomId, user.id(), Map.of(
             "type", "user-joined",
+            "roomId", roomId,
             "userId", userId,
             "displayName", displayName
         ));
     }
 
     @MessageMapping("/video.leave/{roomId}")
-    public void leaveRoom(@DestinationVariable String roomId, Principal principal) {
-        User user = getUserFromPrincipal(principal);
-        String userId = user.getId().toString();
-        
-        // Remove user from room
-        ConcurrentHashMap<String, String> users = roomUsers.get(roomId);
-        if (users != null) {
-            users.remove(userId);
-            if (users.isEmpty()) {
-                roomUsers.remove(roomId);
-            }
+    public void leaveRoom(@DestinationVariable String roomId, StompUser user, SimpMessageHeaderAccessor headerAccessor) {
+        roomRegistry.leave(roomId, headerAccessor.getSessionId());
+        notifyUserLeft(roomId, user.id());
+    }
+
+    // Tabs that close or drop without sending video.leave
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        for (VideoRoomRegistry.Departure departure : roomRegistry.leaveAll(event.getSessionId())) {
+            notifyUserLeft(departure.roomId(), departure.participant().userId());
         }
-        
-        // Notify others
-        messagingTemplate.convertAndSend("/topic/video/" + roomId, Map.of(
+    }
+
+    private void notifyUserLeft(String roomId, UUID userId) {
+        // Still in the call from another tab
+        if (roomRegistry.isMember(roomId, userId)) {
+            return;
+        }
+        sendToPeers(roomId, userId, Map.of(
             "type", "user-left",
-            "userId", userId
+            "roomId", roomId,
+            "userId", userId.toString()
         ));
     }
 
     @MessageMapping("/video.offer/{roomId}")
-    public void sendOffer(@DestinationVariable String roomId, @Payload Map<String, Object> payload, Principal principal) {
-        User user = getUserFromPrincipal(principal);
-        String userId = user.getId().toString();
-        payload.put("type", "offer");
-        payload.put("userId", userId);
-        messagingTemplate.convertAndSend("/topic/video/" + roomId, payload);
+    public void sendOffer(@DestinationVariable String roomId, @Payload Map<String, Object> payload, StompUser user) {
+        relay(roomId, user, "offer", payload);
     }
 
     @MessageMapping("/video.answer/{roomId}")
-    public void sendAnswer(@DestinationVariable String roomId, @Payload Map<String, Object> payload, Principal principal) {
-        User user = getUserFromPrincipal(principal);
-        String userId = user.getId().toString();
-        payload.put("type", "answer");
-        payload.put("userId", userId);
-        messagingTemplate.convertAndSend("/topic/video/" + roomId, payload);
+    public void sendAnswer(@DestinationVariable String roomId, @Payload Map<String, Object> payload, StompUser user) {
+        relay(roomId, user, "answer", payload);
     }
 
+    // Clients batch candidates gathered in quick succession into one frame
     @MessageMapping("/video.ice/{roomId}")
-    public void sendIceCandidate(@DestinationVariable String roomId, @Payload Map<String, Object> payload, Principal principal) {
-        User user = getUserFromPrincipal(principal);
-        String userId = user.getId().toString();
-        payload.put("type", "ice-candidate");
-        payload.put("userId", userId);
-        messagingTemplate.convertAndSend("/topic/video/" + roomId, payload);
+    public void sendIceCandidates(@DestinationVariable String roomId, @Payload Map<String, Object> payload, StompUser user) {
+        Object candidate = payload.remove("candidate");
+        if (candidate != null && !payload.containsKey("candidates")) {
+            payload.put("candidates", List.of(candidate));
+        }
+        relay(roomId, user, "ice-candidates", payload);
+    }
+
+    @MessageExceptionHandler
+    public void handleException(RuntimeException e, StompUser user) {
+        messagingTemplate.convertAndSendToUser(user.id().toString(), "/queue/video", Map.of(
+            "type", "error",
+            "error", e.getMessage() != null ? e.getMessage() : "Signaling failed"
+        ));
+    }
+
+    /**
+     * Delivers a signaling payload to the one peer it is meant for, after checking
+     * that both the sender and the target are currently in the room.
+     */
+    private void relay(String roomId, StompUser sender, String type, Map<String, Object> payload) {
+        UUID targetId = parseUserId(payload.remove("targetUserId"));
+        if (targetId == null || targetId.equals(sender.id())) {
+            throw new RuntimeException("Signaling messages need a target peer");
+        }
+        if (!roomRegistry.isMember(roomId, sender.id()) || !roomRegistry.isMember(roomId, targetId)) {
+            throw new RuntimeException("Both peers must be in the video room");
+        }
+
+        payload.put("type", type);
+        payload.put("roomId", roomId);
+        payload.put("userId", sender.id().toString());
+        roomRegistry.touch(roomId);
+        messagingTemplate.convertAndSendToUser(targetId.toString(), "/queue/video", payload);
+    }
+
+    private void sendToPeers(String roomId, UUID senderId, Map<String, Object> payload) {
+        for (UUID peerId : roomRegistry.memberIds(roomId)) {
+            if (!peerId.equals(senderId)) {
+                messagingTemplate.convertAndSendToUser(peerId.toString(), "/queue/video", payload);
+            }
+        }
+    }
+
+    private static UUID parseUserId(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 }
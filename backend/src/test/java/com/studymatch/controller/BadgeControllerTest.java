@@ -1,5 +1,6 @@
 package com.studymatch.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.studymatch.dto.BadgeDto;
 import com.studymatch.model.User;
 import com.studymatch.service.BadgeService;
@@ -11,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -18,6 +20,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.*;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -31,6 +34,9 @@ class BadgeControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @MockBean
     private BadgeService badgeService;
 
@@ -161,6 +167,24 @@ class BadgeControllerTest {
 
             verify(badgeService).markBadgesAsSeen(any(User.class));
         }
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should mark only the given badges as seen")
+        void shouldMarkGivenBadgesAsSeen() throws Exception {
+            User mockUser = createMockUser();
+            when(userService.getCurrentUser()).thenReturn(mockUser);
+            List<UUID> badgeIds = List.of(UUID.randomUUID());
+
+            mockMvc.perform(post("/api/badges/mark-seen")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Map.of("badgeIds", badgeIds))))
+                    .andExpect(status().isOk());
+
+            verify(badgeService).markBadgesAsSeen(any(User.class),
+                    argThat((BadgeDto.MarkSeenRequest request) -> badgeIds.equals(request.getBadgeIds())));
+            verify(badgeService, never()).markBadgesAsSeen(any(User.class));
+        }
     }
 
     @Nested
@@ -135,6 +135,53 @@ class ConversationControllerTest {
                     .param("page", "1"))
                     .andExpect(status().isOk());
         }
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should return messages after a sequence number")
+        void shouldReturnMessagesAfterSeq() throws Exception {
+            UUID conversationId = UUID.randomUUID();
+            MessageDto message = createMockMessageDto("Missed while offline");
+            message.setSeq(1235L);
+            when(chatService.getMessagesAfter(any(UUID.class), eq(1234L)))
+                .thenReturn(List.of(message));
+
+            mockMvc.perform(get("/api/conversations/" + conversationId + "/messages")
+                    .param("afterSeq", "1234"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].seq").value(1235));
+
+            verify(chatService, never()).getMessages(any(UUID.class), anyInt());
+        }
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should return 400 when a non-participant pages through messages")
+        void shouldRejectNonParticipant() throws Exception {
+            UUID conversationId = UUID.randomUUID();
+            when(chatService.getMessages(any(UUID.class), anyInt()))
+                .thenThrow(new RuntimeException("You are not a participant in this conversation"));
+
+            mockMvc.perform(get("/api/conversations/" + conversationId + "/messages")
+                    .param("page", "0"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("You are not a participant in this conversation"));
+        }
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should return 400 when a non-participant catches up after a sequence number")
+        void shouldRejectNonParticipantAfterSeq() throws Exception {
+            UUID conversationId = UUID.randomUUID();
+            when(chatService.getMessagesAfter(any(UUID.class), anyLong()))
+                .thenThrow(new RuntimeException("You are not a participant in this conversation"));
+
+            mockMvc.perform(get("/api/conversations/" + conversationId + "/messages")
+                    .param("afterSeq", "0"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("You are not a participant in this conversation"));
+        }
     }
 
     @Nested
@@ -1,7 +1,11 @@
 package com.studymatch.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.studymatch.dto.LeaderboardDto;
+import com.studymatch.model.User;
+import com.studymatch.service.LeaderboardRankingService;
 import com.studymatch.service.LeaderboardService;
+import com.studymatch.service.UserService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -13,8 +17,12 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -28,9 +36,18 @@ class LeaderboardControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @MockBean
     private LeaderboardService leaderboardService;
 
+    @MockBean
+    private LeaderboardRankingService rankingService;
+
+    @MockBean
+    private UserService userService;
+
     @Nested
     @DisplayName("GET /api/leaderboard")
     class GetLeaderboardTests {
@@ -39,8 +56,7 @@ class LeaderboardControllerTest {
         @WithMockUser(username = "test@example.com")
         @DisplayName("Should return leaderboard data")
         void shouldReturnLeaderboardData() throws Exception {
-            LeaderboardDto leaderboard = createMockLeaderboard();
-            when(leaderboardService.getLeaderboard()).thenReturn(leaderboard);
+            when(leaderboardService.getSnapshot()).thenReturn(createMockSnapshot());
 
             mockMvc.perform(get("/api/leaderboard"))
                     .andExpect(status().isOk())
@@ -53,14 +69,28 @@ class LeaderboardControllerTest {
         @WithMockUser(username = "test@example.com")
         @DisplayName("Should return leaderboard with user rankings")
         void shouldReturnLeaderboardWithUserRankings() throws Exception {
-            LeaderboardDto leaderboard = createMockLeaderboard();
-            when(leaderboardService.getLeaderboard()).thenReturn(leaderboard);
+            when(leaderboardService.getSnapshot()).thenReturn(createMockSnapshot());
 
             mockMvc.perform(get("/api/leaderboard"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.topStreaks").isArray());
         }
 
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should serve the snapshot with when it was computed")
+        void shouldServeSnapshotWithComputedAt() throws Exception {
+            when(leaderboardService.getSnapshot()).thenReturn(createMockSnapshot());
+
+            mockMvc.perform(get("/api/leaderboard"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("application/json"))
+                    .andExpect(header().exists("Last-Modified"))
+                    .andExpect(jsonPath("$.topStreaks[0].displayName").value("User 1"))
+                    .andExpect(jsonPath("$.computedAt").exists())
+                    .andExpect(jsonPath("$.refreshIntervalMs").value(300000));
+        }
+
         @Test
         @DisplayName("Should return 401 when not authenticated")
         void shouldReturn401WhenNotAuthenticated() throws Exception {
@@ -69,6 +99,90 @@ class LeaderboardControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/leaderboard/rank")
+    class GetRankTests {
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should return the current user's rank with neighbors")
+        void shouldReturnRankWithNeighbors() throws Exception {
+            User user = createMockUser();
+            when(userService.getCurrentUser()).thenReturn(user);
+
+            List<LeaderboardDto.LeaderboardEntry> neighbors = List.of(
+                    createMockEntry("User 41", 41, 90),
+                    createMockEntry("Test User", 42, 80),
+                    createMockEntry("User 43", 43, 70));
+            when(rankingService.getRank(user.getId(), LeaderboardRankingService.Category.SESSIONS_COMPLETED, 1))
+                    .thenReturn(LeaderboardDto.UserRank.builder()
+                            .category("SESSIONS_COMPLETED")
+                            .rank(42)
+                            .value(80L)
+                            .label("80 sessions")
+                            .totalRanked(500)
+                            .neighbors(neighbors)
+                            .build());
+
+            mockMvc.perform(get("/api/leaderboard/rank")
+                            .param("category", "SESSIONS_COMPLETED")
+                            .param("neighbors", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rank").value(42))
+                    .andExpect(jsonPath("$.totalRanked").value(500))
+                    .andExpect(jsonPath("$.neighbors.length()").value(3))
+                    .andExpect(jsonPath("$.neighbors[1].displayName").value("Test User"));
+        }
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should default to study minutes")
+        void shouldDefaultToStudyMinutes() throws Exception {
+            User user = createMockUser();
+            when(userService.getCurrentUser()).thenReturn(user);
+            when(rankingService.getRank(any(UUID.class), any(), anyInt()))
+                    .thenReturn(LeaderboardDto.UserRank.builder()
+                            .category("STUDY_MINUTES")
+                            .value(0L)
+                            .totalRanked(0)
+                            .neighbors(List.of())
+                            .build());
+
+            mockMvc.perform(get("/api/leaderboard/rank"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.category").value("STUDY_MINUTES"))
+                    .andExpect(jsonPath("$.rank").doesNotExist());
+
+            verify(rankingService).getRank(eq(user.getId()), eq(LeaderboardRankingService.Category.STUDY_MINUTES), eq(2));
+        }
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should return 400 for an unknown category")
+        void shouldReturn400ForUnknownCategory() throws Exception {
+            when(userService.getCurrentUser()).thenReturn(createMockUser());
+
+            mockMvc.perform(get("/api/leaderboard/rank").param("category", "FASTEST_TYPIST"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    private User createMockUser() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("test@example.com");
+        user.setDisplayName("Test User");
+        return user;
+    }
+
+    private LeaderboardService.Snapshot createMockSnapshot() throws Exception {
+        LeaderboardDto leaderboard = createMockLeaderboard();
+        LocalDateTime computedAt = LocalDateTime.now();
+        leaderboard.setComputedAt(computedAt);
+        leaderboard.setRefreshIntervalMs(300000L);
+        return new LeaderboardService.Snapshot(leaderboard, objectMapper.writeValueAsBytes(leaderboard), computedAt);
+    }
+
     private LeaderboardDto createMockLeaderboard() {
         List<LeaderboardDto.LeaderboardEntry> topStreaks = new ArrayList<>();
         topStreaks.add(createMockEntry("User 1", 1, 30));
@@ -1,5 +1,6 @@
 package com.studymatch.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.studymatch.dto.NotificationDto;
 import com.studymatch.service.NotificationService;
 import org.junit.jupiter.api.DisplayName;
@@ -10,6 +11,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -31,6 +33,9 @@ class NotificationControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @MockBean
     private NotificationService notificationService;
 
@@ -121,6 +126,56 @@ class NotificationControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("POST /api/notifications/read")
+    class MarkBatchAsReadTests {
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should mark a batch of notifications as read")
+        void shouldMarkBatchAsRead() throws Exception {
+            List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+            doNothing().when(notificationService).markAsRead(any(NotificationDto.MarkReadRequest.class));
+
+            mockMvc.perform(post("/api/notifications/read")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Map.of("ids", ids))))
+                    .andExpect(status().isOk());
+
+            verify(notificationService).markAsRead(argThat((NotificationDto.MarkReadRequest request) ->
+                    ids.equals(request.getIds()) && request.getUpTo() == null));
+        }
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should mark notifications up to a watermark as read")
+        void shouldMarkUpToWatermark() throws Exception {
+            doNothing().when(notificationService).markAsRead(any(NotificationDto.MarkReadRequest.class));
+
+            mockMvc.perform(post("/api/notifications/read")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"upTo\":\"2026-01-15T10:30:00\"}"))
+                    .andExpect(status().isOk());
+
+            verify(notificationService).markAsRead(argThat((NotificationDto.MarkReadRequest request) ->
+                    LocalDateTime.of(2026, 1, 15, 10, 30).equals(request.getUpTo())));
+        }
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should return 400 when neither ids nor upTo is given")
+        void shouldReturn400WithoutIdsOrWatermark() throws Exception {
+            doThrow(new IllegalArgumentException("Provide either ids or upTo"))
+                    .when(notificationService).markAsRead(any(NotificationDto.MarkReadRequest.class));
+
+            mockMvc.perform(post("/api/notifications/read")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Provide either ids or upTo"));
+        }
+    }
+
     @Nested
     @DisplayName("POST /api/notifications/read-all")
     class MarkAllAsReadTests {
@@ -0,0 +1,124 @@
+package com.studymatch.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studymatch.dto.MessageDto;
+import com.studymatch.dto.NotificationDto;
+import com.studymatch.dto.SyncDto;
+import com.studymatch.service.SyncService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Sync Controller Tests")
+class SyncControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private SyncService syncService;
+
+    @Nested
+    @DisplayName("POST /api/sync")
+    class SyncTests {
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should hand out a cursor on first sync")
+        void shouldReturnCursorOnFirstSync() throws Exception {
+            when(syncService.sync(isNull())).thenReturn(SyncDto.builder()
+                .messages(List.of())
+                .receipts(List.of())
+                .notifications(List.of())
+                .cursor("initial-cursor")
+                .hasMore(false)
+                .build());
+
+            mockMvc.perform(post("/api/sync"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.cursor").value("initial-cursor"))
+                    .andExpect(jsonPath("$.messages.length()").value(0))
+                    .andExpect(jsonPath("$.hasMore").value(false));
+        }
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should return changes since the given cursor")
+        void shouldReturnChangesSinceCursor() throws Exception {
+            UUID conversationId = UUID.randomUUID();
+            MessageDto message = MessageDto.builder()
+                .id(UUID.randomUUID())
+                .conversationId(conversationId)
+                .seq(42L)
+                .content("Missed while offline")
+                .sentAt(LocalDateTime.now())
+                .build();
+            SyncDto.ReceiptChange receipt = SyncDto.ReceiptChange.builder()
+                .conversationId(conversationId)
+                .userId(UUID.randomUUID())
+                .readSeq(41L)
+                .build();
+            NotificationDto notification = NotificationDto.builder()
+                .id(UUID.randomUUID())
+                .type("MESSAGE")
+                .message("New message")
+                .read(false)
+                .build();
+            when(syncService.sync("previous-cursor")).thenReturn(SyncDto.builder()
+                .messages(List.of(message))
+                .receipts(List.of(receipt))
+                .notifications(List.of(notification))
+                .cursor("next-cursor")
+                .hasMore(true)
+                .build());
+
+            SyncDto.Request request = new SyncDto.Request();
+            request.setCursor("previous-cursor");
+
+            mockMvc.perform(post("/api/sync")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.messages[0].seq").value(42))
+                    .andExpect(jsonPath("$.receipts[0].readSeq").value(41))
+                    .andExpect(jsonPath("$.notifications[0].message").value("New message"))
+                    .andExpect(jsonPath("$.cursor").value("next-cursor"))
+                    .andExpect(jsonPath("$.hasMore").value(true));
+        }
+
+        @Test
+        @WithMockUser(username = "test@example.com")
+        @DisplayName("Should return 400 for an invalid cursor")
+        void shouldReturn400ForInvalidCursor() throws Exception {
+            when(syncService.sync("garbage")).thenThrow(new RuntimeException("Invalid sync cursor"));
+
+            mockMvc.perform(post("/api/sync")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"cursor\":\"garbage\"}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Invalid sync cursor"));
+        }
+    }
+}
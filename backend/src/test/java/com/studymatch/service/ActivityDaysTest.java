@@ -0,0 +1,212 @@
+package com.studymatch.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Activity Days Tests")
+class ActivityDaysTest {
+
+    // A Friday on a multiple of 8 epoch days, so byte boundaries fall at known offsets
+    private static final LocalDate START = LocalDate.ofEpochDay(20000);
+
+    private static LocalDate day(long offset) {
+        return START.plusDays(offset);
+    }
+
+    private static ActivityDays days(long fromOffset, long toOffset) {
+        return ActivityDays.of(LongStream.rangeClosed(fromOffset, toOffset).mapToObj(ActivityDaysTest::day).toList());
+    }
+
+    @Nested
+    @DisplayName("streakAt")
+    class StreakTests {
+
+        @Test
+        @DisplayName("Should count a streak ending today")
+        void shouldCountStreakEndingToday() {
+            assertEquals(3, days(2, 4).streakAt(day(4)));
+        }
+
+        @Test
+        @DisplayName("Should count a streak ending yesterday while today has no activity")
+        void shouldCountStreakEndingYesterday() {
+            assertEquals(3, days(2, 4).streakAt(day(5)));
+        }
+
+        @Test
+        @DisplayName("Should end a streak after a day without activity")
+        void shouldEndStreakAfterMissedDay() {
+            assertEquals(0, days(2, 4).streakAt(day(6)));
+            assertEquals(0, ActivityDays.empty().streakAt(day(6)));
+        }
+
+        @Test
+        @DisplayName("Should continue a streak across byte boundaries")
+        void shouldCrossByteBoundaries() {
+            // Days 5 to 20: part of the first byte, all of the second, part of the third
+            assertEquals(16, days(5, 20).streakAt(day(20)));
+        }
+
+        @Test
+        @DisplayName("Should count fully set bytes back to the first day")
+        void shouldCountFullBytes() {
+            assertEquals(24, days(0, 23).streakAt(day(23)));
+            assertEquals(24, days(0, 23).streakAt(day(24)));
+        }
+
+        @Test
+        @DisplayName("Should stop at a gap inside a full run of bytes")
+        void shouldStopAtGap() {
+            List<LocalDate> active = new ArrayList<>();
+            for (long offset = 0; offset <= 23; offset++) {
+                if (offset != 9) {
+                    active.add(day(offset));
+                }
+            }
+            ActivityDays days = ActivityDays.of(active);
+
+            assertEquals(14, days.streakAt(day(23)));
+            assertEquals(9, days.streakAt(day(8)));
+        }
+
+        @Test
+        @DisplayName("Should only count the last run of a partly set byte")
+        void shouldCountLastRunInByte() {
+            ActivityDays days = ActivityDays.of(List.of(day(0), day(1), day(3), day(4), day(5)));
+
+            assertEquals(3, days.streakAt(day(5)));
+            assertEquals(2, days.streakAt(day(1)));
+        }
+    }
+
+    @Nested
+    @DisplayName("with")
+    class WithTests {
+
+        @Test
+        @DisplayName("Should grow to the left for a backdated day")
+        void shouldGrowLeftForBackdatedDays() {
+            LocalDate today = day(3);
+            ActivityDays days = ActivityDays.empty().with(today);
+
+            // Activities can be logged for up to 30 days back, in any order
+            for (long back = 30; back >= 1; back -= 3) {
+                days = days.with(today.minusDays(back));
+            }
+
+            for (long back = 0; back <= 30; back++) {
+                LocalDate day = today.minusDays(back);
+                assertEquals(back % 3 == 0, days.contains(day), "day " + day);
+            }
+            assertEquals(11, days.count());
+            assertEquals(0, days.from().toEpochDay() % 8);
+            assertFalse(days.from().isAfter(today.minusDays(30)));
+        }
+
+        @Test
+        @DisplayName("Should fill the gap when a backdated day joins two runs")
+        void shouldJoinRunsWhenBackdated() {
+            ActivityDays days = ActivityDays.of(List.of(day(10), day(11), day(13), day(14)));
+
+            assertEquals(2, days.streakAt(day(14)));
+            assertEquals(5, days.with(day(12)).streakAt(day(14)));
+        }
+
+        @Test
+        @DisplayName("Should return the same instance for a day already set")
+        void shouldReturnSameInstanceForKnownDay() {
+            ActivityDays days = days(0, 3);
+
+            assertSame(days, days.with(day(2)));
+        }
+
+        @Test
+        @DisplayName("Should match a bitmap built from the whole collection")
+        void shouldMatchBulkBuild() {
+            List<LocalDate> active = List.of(day(40), day(3), day(17), day(-12), day(39), day(0));
+            ActivityDays incremental = ActivityDays.empty();
+            for (LocalDate day : active) {
+                incremental = incremental.with(day);
+            }
+            ActivityDays bulk = ActivityDays.of(active);
+
+            assertEquals(bulk.from(), incremental.from());
+            assertArrayEquals(bulk.bits(), incremental.bits());
+        }
+    }
+
+    @Nested
+    @DisplayName("of")
+    class OfTests {
+
+        @Test
+        @DisplayName("Should align negative epoch days down to a multiple of 8")
+        void shouldAlignNegativeEpochDays() {
+            ActivityDays days = ActivityDays.of(List.of(LocalDate.ofEpochDay(-3), LocalDate.ofEpochDay(-1)));
+
+            assertEquals(LocalDate.ofEpochDay(-8), days.from());
+            assertEquals(1, days.bits().length);
+            assertTrue(days.contains(LocalDate.ofEpochDay(-3)));
+            assertFalse(days.contains(LocalDate.ofEpochDay(-2)));
+            assertTrue(days.contains(LocalDate.ofEpochDay(-1)));
+            assertEquals(1, days.streakAt(LocalDate.ofEpochDay(0)));
+        }
+
+        @Test
+        @DisplayName("Should start a new byte at epoch day 0")
+        void shouldSplitAtEpochZero() {
+            ActivityDays days = ActivityDays.of(List.of(LocalDate.ofEpochDay(-1), LocalDate.ofEpochDay(0)));
+
+            assertEquals(LocalDate.ofEpochDay(-8), days.from());
+            assertEquals(2, days.bits().length);
+            assertEquals(2, days.streakAt(LocalDate.ofEpochDay(0)));
+        }
+
+        @Test
+        @DisplayName("Should round-trip through the stored form")
+        void shouldRoundTrip() {
+            ActivityDays days = ActivityDays.of(List.of(day(-5), day(2), day(30)));
+            ActivityDays stored = ActivityDays.of(days.from(), days.bits());
+
+            assertEquals(days.from(), stored.from());
+            assertArrayEquals(days.bits(), stored.bits());
+            assertEquals(3, stored.count());
+        }
+
+        @Test
+        @DisplayName("Should treat a missing stored bitmap as no days")
+        void shouldTreatMissingBitmapAsEmpty() {
+            assertNull(ActivityDays.of(null, null).from());
+            assertNull(ActivityDays.of(List.of()).bits());
+            assertEquals(0, ActivityDays.of(START, new byte[0]).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should count weekend days like a day-by-day check")
+    void shouldCountWeekendsLikeNaiveCount() {
+        // Sixty days span bytes starting on every day of the week; each start shifts the pattern within them
+        for (long start = -20; start < 20; start++) {
+            List<LocalDate> active = new ArrayList<>();
+            for (long offset = start; offset < start + 60; offset += 1 + Math.floorMod(offset, 3)) {
+                active.add(day(offset));
+            }
+            long expected = active.stream()
+                .filter(day -> day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY)
+                .count();
+
+            ActivityDays days = ActivityDays.of(active);
+            assertEquals(expected, days.weekendCount(), "start " + start);
+            assertEquals(active.size(), days.count());
+        }
+    }
+}
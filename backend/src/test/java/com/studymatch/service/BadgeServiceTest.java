@@ -0,0 +1,181 @@
+package com.studymatch.service;
+
+import com.studymatch.dto.BadgeDto;
+import com.studymatch.event.MatchBecameMutualEvent;
+import com.studymatch.model.Profile;
+import com.studymatch.model.User;
+import com.studymatch.model.UserStats;
+import com.studymatch.repository.ProfileRepository;
+import com.studymatch.repository.UserRepository;
+import com.studymatch.repository.UserStatsRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against the database rather than mocks, so the statements each call issues can be counted.
+// Profiles have jsonb columns, which H2 only accepts once the type is declared.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:badgeservicetest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS JSON",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@DisplayName("Badge Service Tests")
+class BadgeServiceTest {
+
+    @Autowired
+    private BadgeService badgeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Nested
+    @DisplayName("getBadges")
+    class GetBadgesTests {
+
+        @Test
+        @DisplayName("Should load earned badges and all progress counters in two queries")
+        void shouldUseTwoQueries() {
+            User user = createUser(7, 1200L);
+            Statistics statistics = statistics();
+            statistics.clear();
+
+            badgeService.getBadges(user);
+
+            assertEquals(2, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        @DisplayName("Should report progress from the stats row and the profile streak")
+        void shouldReportProgressFromStatsAndStreak() {
+            User user = createUser(7, 1200L);
+
+            BadgeDto.BadgeListResponse response = badgeService.getBadges(user);
+
+            assertEquals(7, progressOf(response, "streak_14"));
+            assertEquals(1200, progressOf(response, "hours_50"));
+            assertEquals(2, progressOf(response, "partners_5"));
+            assertEquals(3, progressOf(response, "sessions_10"));
+        }
+
+        @Test
+        @DisplayName("Should create the stats row for a user without one")
+        void shouldCreateMissingStats() {
+            User user = userRepository.save(User.builder()
+                    .email(UUID.randomUUID() + "@example.com")
+                    .displayName("New User")
+                    .build());
+
+            BadgeDto.BadgeListResponse response = badgeService.getBadges(user);
+
+            assertEquals(0, progressOf(response, "first_step"));
+            assertTrue(userStatsRepository.existsById(user.getId()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Badge evaluation")
+    class EvaluationTests {
+
+        @Test
+        @DisplayName("Should award qualifying badges once")
+        void shouldAwardQualifyingBadgesOnce() {
+            User user = createUser(3, 600L);
+
+            List<String> awarded = badgeService.checkAndAwardBadges(user).stream()
+                    .map(BadgeDto.NewBadgeNotification::getCode)
+                    .toList();
+
+            assertTrue(awarded.containsAll(List.of("first_step", "streak_3", "hours_10", "first_partner", "first_session")));
+            assertTrue(badgeService.checkAndAwardBadges(user).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should only check the category a match can move")
+        void shouldOnlyCheckSocialBadgesForMatch() throws InterruptedException {
+            User user = createUser(3, 600L);
+            User partner = createUser(0, 0L);
+
+            // Called outside a transaction, so it runs straight away on the async executor
+            badgeService.onMatchBecameMutual(new MatchBecameMutualEvent(UUID.randomUUID(), user.getId(), partner.getId()));
+
+            List<String> earned = awaitEarnedBadges(user, 1);
+            assertEquals(List.of("first_partner"), earned);
+            assertEquals(List.of("first_partner"), awaitEarnedBadges(partner, 1));
+        }
+    }
+
+    @Nested
+    @DisplayName("markBadgesAsSeen")
+    class MarkSeenTests {
+
+        @Test
+        @DisplayName("Should reject more badge ids than one batch")
+        void shouldRejectOversizedBatch() {
+            User user = createUser(0, 0L);
+            List<UUID> badgeIds = Stream.generate(UUID::randomUUID).limit(1001).toList();
+            BadgeDto.MarkSeenRequest request = BadgeDto.MarkSeenRequest.builder().badgeIds(badgeIds).build();
+
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                    () -> badgeService.markBadgesAsSeen(user, request));
+            assertEquals("Cannot mark more than 1000 badges at once", error.getMessage());
+        }
+    }
+
+    private List<String> awaitEarnedBadges(User user, int count) throws InterruptedException {
+        List<String> earned = List.of();
+        for (int attempt = 0; attempt < 50 && earned.size() < count; attempt++) {
+            Thread.sleep(100);
+            earned = badgeService.getEarnedBadges(user).stream().map(BadgeDto::getCode).toList();
+        }
+        return earned;
+    }
+
+    private User createUser(int streak, long totalMinutes) {
+        User user = userRepository.save(User.builder()
+                .email(UUID.randomUUID() + "@example.com")
+                .displayName("Test User")
+                .build());
+        profileRepository.save(Profile.builder().user(user).studyStreak(streak).build());
+        userStatsRepository.save(UserStats.builder()
+                .userId(user.getId())
+                .totalMinutes(totalMinutes)
+                .partnerCount(2)
+                .completedSessions(3)
+                .build());
+        return user;
+    }
+
+    private int progressOf(BadgeDto.BadgeListResponse response, String code) {
+        return response.getAvailableBadges().stream()
+                .filter(badge -> badge.getCode().equals(code))
+                .findFirst()
+                .orElseThrow()
+                .getCurrentProgress();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,205 @@
+package com.studymatch.service;
+
+import com.studymatch.dto.MessageDto;
+import com.studymatch.model.ConversationReceipt;
+import com.studymatch.model.User;
+import com.studymatch.repository.ConversationReceiptRepository;
+import com.studymatch.repository.ConversationRepository;
+import com.studymatch.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against the test database without a surrounding transaction, so concurrent calls
+// each commit on their own as they would in production. Profiles have jsonb columns,
+// which H2 only accepts once the type is declared.
+@SpringBootTest(properties =
+        "spring.datasource.url=jdbc:h2:mem:chatservicetest;INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS JSON")
+@ActiveProfiles("test")
+@DisplayName("Chat Service Tests")
+class ChatServiceTest {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private ConversationReceiptRepository receiptRepository;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Nested
+    @DisplayName("Receipts")
+    class ReceiptTests {
+
+        @Test
+        @DisplayName("Should create a receipt for each participant with the conversation")
+        void shouldCreateReceiptsWithConversation() {
+            User sender = createUser();
+            User recipient = createUser();
+            UUID conversationId = startConversation(sender, recipient);
+
+            assertTrue(receiptRepository.findByConversationIdAndUserId(conversationId, sender.getId()).isPresent());
+            assertTrue(receiptRepository.findByConversationIdAndUserId(conversationId, recipient.getId()).isPresent());
+        }
+
+        @Test
+        @DisplayName("Should advance both watermarks on a participant's first mark")
+        void shouldAdvanceOnFirstMark() {
+            User sender = createUser();
+            User recipient = createUser();
+            UUID conversationId = startConversation(sender, recipient);
+            for (int i = 0; i < 3; i++) {
+                chatService.sendMessageAs(sender.getId(), conversationId, "Message " + i);
+            }
+
+            authenticate(recipient);
+            chatService.markAsDelivered(conversationId);
+            chatService.markAsRead(conversationId);
+
+            ConversationReceipt receipt = receipt(conversationId, recipient);
+            assertEquals(3L, receipt.getDeliveredSeq());
+            assertEquals(3L, receipt.getReadSeq());
+            assertNotNull(receipt.getReadAt());
+        }
+
+        @Test
+        @DisplayName("Should keep the furthest watermark under concurrent marks")
+        void shouldKeepFurthestWatermarkUnderConcurrentMarks() throws Exception {
+            User sender = createUser();
+            User recipient = createUser();
+            UUID conversationId = startConversation(sender, recipient);
+            chatService.sendMessageAs(sender.getId(), conversationId, "First");
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> calls = new ArrayList<>();
+                for (int i = 0; i < 40; i++) {
+                    int call = i;
+                    calls.add(executor.submit(() -> {
+                        authenticate(recipient);
+                        if (call % 2 == 0) {
+                            chatService.markAsRead(conversationId);
+                        } else {
+                            chatService.markAsDelivered(conversationId);
+                        }
+                        if (call % 10 == 0) {
+                            chatService.sendMessageAs(sender.getId(), conversationId, "Message " + call);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> call : calls) {
+                    call.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            // The watermarks never move back, so one more mark of each catches up with the last message
+            authenticate(recipient);
+            chatService.markAsRead(conversationId);
+            chatService.markAsDelivered(conversationId);
+
+            long last = conversationRepository.findLastMessageSeq(conversationId);
+            ConversationReceipt receipt = receipt(conversationId, recipient);
+            assertEquals(5L, last);
+            assertEquals(last, receipt.getReadSeq());
+            assertEquals(last, receipt.getDeliveredSeq());
+            assertEquals(2, receiptRepository.findByConversationIds(List.of(conversationId)).size());
+        }
+
+        @Test
+        @DisplayName("Should reject a mark from a non-participant")
+        void shouldRejectNonParticipant() {
+            User sender = createUser();
+            User recipient = createUser();
+            User outsider = createUser();
+            UUID conversationId = startConversation(sender, recipient);
+            chatService.sendMessageAs(sender.getId(), conversationId, "Hello");
+
+            authenticate(outsider);
+            RuntimeException error = assertThrows(RuntimeException.class, () -> chatService.markAsRead(conversationId));
+            assertEquals("You are not a participant in this conversation", error.getMessage());
+            assertTrue(receiptRepository.findByConversationIdAndUserId(conversationId, outsider.getId()).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Reading messages")
+    class ReadMessagesTests {
+
+        @Test
+        @DisplayName("Should return messages after a sequence number to a participant")
+        void shouldReturnMessagesAfterSeq() {
+            User sender = createUser();
+            User recipient = createUser();
+            UUID conversationId = startConversation(sender, recipient);
+            for (int i = 0; i < 3; i++) {
+                chatService.sendMessageAs(sender.getId(), conversationId, "Message " + i);
+            }
+
+            authenticate(recipient);
+            assertEquals(List.of(2L, 3L), chatService.getMessagesAfter(conversationId, 1).stream()
+                    .map(MessageDto::getSeq).toList());
+        }
+
+        @Test
+        @DisplayName("Should reject a non-participant")
+        void shouldRejectNonParticipant() {
+            User sender = createUser();
+            User recipient = createUser();
+            User outsider = createUser();
+            UUID conversationId = startConversation(sender, recipient);
+            chatService.sendMessageAs(sender.getId(), conversationId, "Hello");
+
+            authenticate(outsider);
+            assertThrows(RuntimeException.class, () -> chatService.getMessagesAfter(conversationId, 0));
+            assertThrows(RuntimeException.class, () -> chatService.getMessages(conversationId, 0));
+        }
+    }
+
+    private UUID startConversation(User user, User otherUser) {
+        authenticate(user);
+        return chatService.createOrGetConversation(otherUser.getId()).getId();
+    }
+
+    private ConversationReceipt receipt(UUID conversationId, User user) {
+        return receiptRepository.findByConversationIdAndUserId(conversationId, user.getId()).orElseThrow();
+    }
+
+    private void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of()));
+    }
+
+    private User createUser() {
+        return userRepository.save(User.builder()
+                .email(UUID.randomUUID() + "@example.com")
+                .displayName("Test User")
+                .build());
+    }
+}
@@ -0,0 +1,150 @@
+package com.studymatch.service;
+
+import com.studymatch.model.UserStats;
+import com.studymatch.repository.ActivityRepository;
+import com.studymatch.repository.ProfileRepository;
+import com.studymatch.repository.UserRepository;
+import com.studymatch.repository.UserStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Leaderboard Ranking Service Tests")
+class LeaderboardRankingServiceTest {
+
+    private static final UUID USER = UUID.randomUUID();
+
+    private UserStatsRepository userStatsRepository;
+    private ProfileRepository profileRepository;
+    private ActivityRepository activityRepository;
+    private LeaderboardRankingService rankingService;
+
+    @BeforeEach
+    void setUp() {
+        userStatsRepository = mock(UserStatsRepository.class);
+        profileRepository = mock(ProfileRepository.class);
+        activityRepository = mock(ActivityRepository.class);
+        rankingService = new LeaderboardRankingService(
+            userStatsRepository, profileRepository, mock(UserRepository.class), activityRepository);
+    }
+
+    @Nested
+    @DisplayName("rebuild")
+    class RebuildTests {
+
+        @Test
+        @DisplayName("Should read users again when their changes commit while the tables are read")
+        void shouldRereadUsersChangedDuringLoad() {
+            // Each change commits after its query took its snapshot, so only the second read has it
+            when(userStatsRepository.findAllActive()).thenAnswer(invocation -> {
+                rankingService.addScore(USER, LeaderboardRankingService.Category.STUDY_MINUTES, 30);
+                return List.of(stats(100));
+            });
+            when(profileRepository.findActiveStreaks()).thenAnswer(invocation -> {
+                rankingService.setScore(USER, LeaderboardRankingService.Category.STREAK, 4);
+                return List.<Object[]>of(new Object[] {USER, 3});
+            });
+            when(activityRepository.findDailyMinutesSince(any())).thenAnswer(invocation -> {
+                rankingService.addStudyMinutes(USER, LocalDate.now(), 30);
+                return List.<Object[]>of(new Object[] {USER, LocalDate.now(), 70});
+            });
+            whenReadAgain(130, 4, 100);
+
+            rankingService.rebuild();
+
+            assertEquals(130, score(LeaderboardRankingService.Category.STUDY_MINUTES));
+            assertEquals(4, score(LeaderboardRankingService.Category.STREAK));
+            assertEquals(Map.of(USER, 100), rankingService.getRecentStudyMinutes(LocalDate.now(), LocalDate.now()));
+        }
+
+        @Test
+        @DisplayName("Should not count a change twice when the query already has it")
+        void shouldNotDoubleCountChangeInResult() {
+            // The change commits before the query's snapshot but is applied to the rankings after it
+            when(userStatsRepository.findAllActive()).thenAnswer(invocation -> {
+                rankingService.addScore(USER, LeaderboardRankingService.Category.STUDY_MINUTES, 30);
+                return List.of(stats(130));
+            });
+            when(activityRepository.findDailyMinutesSince(any())).thenAnswer(invocation -> {
+                rankingService.addStudyMinutes(USER, LocalDate.now(), 30);
+                return List.<Object[]>of(new Object[] {USER, LocalDate.now(), 100});
+            });
+            whenReadAgain(130, 0, 100);
+
+            rankingService.rebuild();
+
+            assertEquals(130, score(LeaderboardRankingService.Category.STUDY_MINUTES));
+            assertEquals(Map.of(USER, 100), rankingService.getRecentStudyMinutes(LocalDate.now(), LocalDate.now()));
+        }
+
+        @Test
+        @DisplayName("Should read a user once more when they change during the second read")
+        void shouldRereadUntilQuiet() {
+            when(userStatsRepository.findAllActive()).thenAnswer(invocation -> {
+                rankingService.addScore(USER, LeaderboardRankingService.Category.STUDY_MINUTES, 30);
+                return List.of(stats(100));
+            });
+            when(userStatsRepository.findActiveByUserIdIn(any()))
+                .thenAnswer(invocation -> {
+                    rankingService.addScore(USER, LeaderboardRankingService.Category.STUDY_MINUTES, 10);
+                    return List.of(stats(130));
+                })
+                .thenReturn(List.of(stats(140)));
+
+            rankingService.rebuild();
+
+            assertEquals(140, score(LeaderboardRankingService.Category.STUDY_MINUTES));
+            verify(userStatsRepository, times(2)).findActiveByUserIdIn(any());
+        }
+
+        @Test
+        @DisplayName("Should not read again for changes made before the rebuild")
+        void shouldNotRereadEarlierChanges() {
+            rankingService.addScore(USER, LeaderboardRankingService.Category.STUDY_MINUTES, 30);
+            when(userStatsRepository.findAllActive()).thenReturn(List.of(stats(130)));
+
+            rankingService.rebuild();
+
+            assertEquals(130, score(LeaderboardRankingService.Category.STUDY_MINUTES));
+            verify(userStatsRepository, never()).findActiveByUserIdIn(any());
+        }
+
+        @Test
+        @DisplayName("Should keep the current rankings when loading fails")
+        void shouldKeepRankingsOnFailure() {
+            rankingService.addScore(USER, LeaderboardRankingService.Category.STUDY_MINUTES, 30);
+            when(userStatsRepository.findAllActive()).thenThrow(new RuntimeException("database unavailable"));
+
+            rankingService.rebuild();
+            rankingService.addScore(USER, LeaderboardRankingService.Category.STUDY_MINUTES, 10);
+
+            assertEquals(40, score(LeaderboardRankingService.Category.STUDY_MINUTES));
+        }
+    }
+
+    private void whenReadAgain(long totalMinutes, int streak, int minutesToday) {
+        when(userStatsRepository.findActiveByUserIdIn(any())).thenReturn(List.of(stats(totalMinutes)));
+        when(profileRepository.findActiveStreaksByUserIdIn(any()))
+            .thenReturn(streak > 0 ? List.<Object[]>of(new Object[] {USER, streak}) : List.of());
+        when(activityRepository.findDailyMinutesSince(any(), any()))
+            .thenReturn(List.<Object[]>of(new Object[] {USER, LocalDate.now(), minutesToday}));
+    }
+
+    private long score(LeaderboardRankingService.Category category) {
+        return rankingService.getRank(USER, category, 0).getValue();
+    }
+
+    private static UserStats stats(long totalMinutes) {
+        return UserStats.builder().userId(USER).totalMinutes(totalMinutes).build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.studymatch.service;
+
+import com.studymatch.dto.NotificationDto;
+import com.studymatch.model.Notification;
+import com.studymatch.model.User;
+import com.studymatch.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Profiles have jsonb columns, which H2 only accepts once the type is declared
+@SpringBootTest(properties =
+        "spring.datasource.url=jdbc:h2:mem:notificationservicetest;INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS JSON")
+@ActiveProfiles("test")
+@DisplayName("Notification Service Tests")
+class NotificationServiceTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Nested
+    @DisplayName("Message notifications")
+    class MessageNotificationTests {
+
+        @Test
+        @DisplayName("Should move a coalesced chat notification to the top of the list")
+        void shouldMoveCoalescedNotificationToTop() throws InterruptedException {
+            User recipient = createUser("Recipient");
+            User sender = createUser("Sender");
+            UUID conversationId = UUID.randomUUID();
+
+            notificationService.createMessageNotification(recipient, sender, "Hello", conversationId);
+            Thread.sleep(10);
+            notificationService.createNotification(recipient, Notification.NotificationType.SYSTEM, "Welcome", null);
+            Thread.sleep(10);
+            notificationService.createMessageNotification(recipient, sender, "Are you there?", conversationId);
+
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(recipient.getEmail(), null, List.of()));
+            List<String> messages = notificationService.getNotifications(0).getContent().stream()
+                    .map(NotificationDto::getMessage)
+                    .toList();
+
+            assertEquals(List.of("Sender sent 2 messages", "Welcome"), messages);
+        }
+    }
+
+    private User createUser(String displayName) {
+        return userRepository.save(User.builder()
+                .email(UUID.randomUUID() + "@example.com")
+                .displayName(displayName)
+                .build());
+    }
+}
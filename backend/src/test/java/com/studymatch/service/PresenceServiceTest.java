@@ -0,0 +1,118 @@
+package com.studymatch.service;
+
+import com.studymatch.repository.ConversationRepository;
+import com.studymatch.repository.MatchRepository;
+import com.studymatch.repository.UserRepository;
+import com.studymatch.websocket.EventFrameSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Presence Service Tests")
+class PresenceServiceTest {
+
+    private static final UUID USER = UUID.randomUUID();
+
+    private UserRepository userRepository;
+    private PresenceService presenceService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        presenceService = new PresenceService(userRepository, mock(MatchRepository.class),
+            mock(ConversationRepository.class), mock(EventFrameSender.class));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Nested
+    @DisplayName("flushPendingWrites")
+    class FlushTests {
+
+        @Test
+        @DisplayName("Should not stamp lastSeen when a user comes online")
+        void shouldOnlyMarkOnline() {
+            presenceService.sessionOpened(USER, "session-1");
+
+            presenceService.flushPendingWrites();
+
+            verify(userRepository).markOnline(List.of(USER));
+            verify(userRepository, never()).markOffline(anyCollection(), any());
+        }
+
+        @Test
+        @DisplayName("Should stamp lastSeen when the last session closes")
+        void shouldMarkOfflineWithLastSeen() {
+            presenceService.sessionOpened(USER, "session-1");
+            presenceService.sessionOpened(USER, "session-2");
+            presenceService.flushPendingWrites();
+
+            presenceService.sessionClosed(USER, "session-1");
+            presenceService.flushPendingWrites();
+            verify(userRepository, never()).markOffline(anyCollection(), any());
+
+            presenceService.sessionClosed(USER, "session-2");
+            presenceService.flushPendingWrites();
+            verify(userRepository).markOffline(eq(List.of(USER)), any());
+        }
+
+        @Test
+        @DisplayName("Should write a failed batch again on the next flush")
+        void shouldRequeueFailedBatch() {
+            presenceService.sessionOpened(USER, "session-1");
+            presenceService.sessionClosed(USER, "session-1");
+            when(userRepository.markOffline(anyCollection(), any()))
+                .thenThrow(new RuntimeException("database unavailable"))
+                .thenReturn(1);
+
+            TransactionSynchronizationManager.initSynchronization();
+            assertThrows(RuntimeException.class, () -> presenceService.flushPendingWrites());
+            rollBack();
+
+            presenceService.flushPendingWrites();
+            verify(userRepository, times(2)).markOffline(eq(List.of(USER)), any());
+        }
+
+        @Test
+        @DisplayName("Should keep a newer state over a failed batch")
+        void shouldKeepNewerStateOverFailedBatch() {
+            presenceService.sessionOpened(USER, "session-1");
+            presenceService.sessionClosed(USER, "session-1");
+            when(userRepository.markOffline(anyCollection(), any())).thenThrow(new RuntimeException("database unavailable"));
+
+            TransactionSynchronizationManager.initSynchronization();
+            assertThrows(RuntimeException.class, () -> presenceService.flushPendingWrites());
+            // The user reconnects before the failed transaction completes
+            presenceService.sessionOpened(USER, "session-2");
+            rollBack();
+
+            presenceService.flushPendingWrites();
+            verify(userRepository).markOnline(List.of(USER));
+            verify(userRepository, times(1)).markOffline(anyCollection(), any());
+        }
+    }
+
+    // What the transaction manager does when the flush's transaction rolls back
+    private static void rollBack() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+}
@@ -0,0 +1,218 @@
+package com.studymatch.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Ranked Index Tests")
+class RankedIndexTest {
+
+    // Fixed ids so ties have a known order (index order breaks ties by user id)
+    private static final UUID A = new UUID(0, 1);
+    private static final UUID B = new UUID(0, 2);
+    private static final UUID C = new UUID(0, 3);
+    private static final UUID D = new UUID(0, 4);
+
+    @Nested
+    @DisplayName("put and add")
+    class UpdateTests {
+
+        @Test
+        @DisplayName("Should replace a user's score on put")
+        void shouldReplaceScore() {
+            RankedIndex index = new RankedIndex();
+            index.put(A, 10);
+            index.put(A, 3);
+
+            assertEquals(3, index.score(A));
+            assertEquals(1, index.size());
+        }
+
+        @Test
+        @DisplayName("Should accumulate deltas on add")
+        void shouldAccumulateDeltas() {
+            RankedIndex index = new RankedIndex();
+            index.add(A, 5);
+            index.add(A, 7);
+            index.add(A, -2);
+
+            assertEquals(10, index.score(A));
+        }
+
+        @Test
+        @DisplayName("Should drop a user whose score reaches zero")
+        void shouldDropUserAtZero() {
+            RankedIndex index = new RankedIndex();
+            index.put(A, 5);
+            index.put(B, 8);
+            index.add(A, -5);
+            index.put(B, 0);
+
+            assertEquals(0, index.size());
+            assertEquals(0, index.score(A));
+            assertEquals(-1, index.positionOf(A));
+            assertEquals(0, index.rankOf(B));
+            assertEquals(List.of(), index.range(0, 10));
+        }
+
+        @Test
+        @DisplayName("Should never rank a zero or negative score")
+        void shouldIgnoreNonPositiveScores() {
+            RankedIndex index = new RankedIndex();
+            index.put(A, 0);
+            index.add(B, -3);
+
+            assertEquals(0, index.size());
+            assertEquals(-1, index.positionOf(B));
+        }
+
+        @Test
+        @DisplayName("Should remove a user")
+        void shouldRemoveUser() {
+            RankedIndex index = new RankedIndex();
+            index.put(A, 5);
+            index.put(B, 8);
+            index.remove(A);
+
+            assertEquals(1, index.size());
+            assertEquals(-1, index.positionOf(A));
+            assertEquals(0, index.positionOf(B));
+        }
+    }
+
+    @Nested
+    @DisplayName("rankOf and positionOf")
+    class RankTests {
+
+        @Test
+        @DisplayName("Should give equal scores the same competition rank")
+        void shouldShareRankOnTies() {
+            RankedIndex index = new RankedIndex();
+            index.put(A, 10);
+            index.put(B, 20);
+            index.put(C, 10);
+            index.put(D, 5);
+
+            assertEquals(1, index.rankOf(B));
+            assertEquals(2, index.rankOf(A));
+            assertEquals(2, index.rankOf(C));
+            assertEquals(4, index.rankOf(D));
+            assertEquals(2, index.rankOfScore(10));
+            assertEquals(4, index.rankOfScore(7));
+        }
+
+        @Test
+        @DisplayName("Should order ties by user id for positions")
+        void shouldOrderTiesByUserId() {
+            RankedIndex index = new RankedIndex();
+            index.put(C, 10);
+            index.put(A, 10);
+            index.put(B, 20);
+
+            assertEquals(0, index.positionOf(B));
+            assertEquals(1, index.positionOf(A));
+            assertEquals(2, index.positionOf(C));
+        }
+
+        @Test
+        @DisplayName("Should move a user when their score changes")
+        void shouldMoveOnScoreChange() {
+            RankedIndex index = new RankedIndex();
+            index.put(A, 10);
+            index.put(B, 20);
+            index.add(A, 15);
+
+            assertEquals(0, index.positionOf(A));
+            assertEquals(1, index.rankOf(A));
+            assertEquals(2, index.rankOf(B));
+        }
+    }
+
+    @Nested
+    @DisplayName("range")
+    class RangeTests {
+
+        private RankedIndex index() {
+            RankedIndex index = new RankedIndex();
+            index.put(A, 40);
+            index.put(B, 30);
+            index.put(C, 20);
+            index.put(D, 10);
+            return index;
+        }
+
+        @Test
+        @DisplayName("Should return entries in index order")
+        void shouldReturnEntriesInOrder() {
+            assertEquals(List.of(new RankedIndex.Entry(B, 30), new RankedIndex.Entry(C, 20)), index().range(1, 2));
+        }
+
+        @Test
+        @DisplayName("Should clip a window starting before the first entry")
+        void shouldClipNegativeStart() {
+            assertEquals(List.of(new RankedIndex.Entry(A, 40)), index().range(-2, 3));
+        }
+
+        @Test
+        @DisplayName("Should clip a window running past the last entry")
+        void shouldClipPastEnd() {
+            assertEquals(List.of(new RankedIndex.Entry(D, 10)), index().range(3, 5));
+            assertEquals(List.of(), index().range(4, 5));
+        }
+
+        @Test
+        @DisplayName("Should return nothing for an empty window")
+        void shouldReturnNothingForEmptyWindow() {
+            assertEquals(List.of(), index().range(1, 0));
+            assertEquals(List.of(), new RankedIndex().range(0, 3));
+        }
+    }
+
+    @Test
+    @DisplayName("Should agree with a sorted list after random updates")
+    void shouldMatchSortedList() {
+        Random random = new Random(42);
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            users.add(new UUID(0, i));
+        }
+        RankedIndex index = new RankedIndex();
+        Map<UUID, Long> expected = new HashMap<>();
+
+        for (int step = 0; step < 2000; step++) {
+            UUID user = users.get(random.nextInt(users.size()));
+            long score = random.nextInt(12) - 2;
+            if (random.nextBoolean()) {
+                index.put(user, score);
+                expected.put(user, score);
+            } else {
+                index.add(user, score);
+                expected.merge(user, score, Long::sum);
+            }
+            expected.values().removeIf(value -> value <= 0);
+        }
+
+        List<RankedIndex.Entry> sorted = expected.entrySet().stream()
+            .map(e -> new RankedIndex.Entry(e.getKey(), e.getValue()))
+            .sorted(Comparator.comparingLong(RankedIndex.Entry::score).reversed()
+                .thenComparing(RankedIndex.Entry::userId))
+            .toList();
+        assertEquals(sorted, index.range(0, users.size()));
+        for (int position = 0; position < sorted.size(); position++) {
+            RankedIndex.Entry entry = sorted.get(position);
+            long above = sorted.stream().filter(e -> e.score() > entry.score()).count();
+            assertEquals(position, index.positionOf(entry.userId()));
+            assertEquals(above + 1, index.rankOf(entry.userId()));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.studymatch.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Video Room Registry Tests")
+class VideoRoomRegistryTest {
+
+    private static final String ROOM = "room-1";
+    private static final VideoRoomRegistry.Participant ALICE = new VideoRoomRegistry.Participant(UUID.randomUUID(), "Alice");
+    private static final VideoRoomRegistry.Participant BOB = new VideoRoomRegistry.Participant(UUID.randomUUID(), "Bob");
+
+    private SimpUserRegistry simpUserRegistry;
+    private VideoRoomRegistry roomRegistry;
+
+    @BeforeEach
+    void setUp() {
+        simpUserRegistry = mock(SimpUserRegistry.class);
+        roomRegistry = new VideoRoomRegistry(new SimpleMeterRegistry(), simpUserRegistry);
+        // Every room counts as idle, as if the call had run past the TTL without signaling
+        ReflectionTestUtils.setField(roomRegistry, "roomTtlMinutes", -1L);
+    }
+
+    @Nested
+    @DisplayName("expireIdleRooms")
+    class ExpiryTests {
+
+        @Test
+        @DisplayName("Should keep a long-running room whose sessions are connected")
+        void shouldKeepConnectedRoom() {
+            roomRegistry.join(ROOM, "session-a", ALICE);
+            roomRegistry.join(ROOM, "session-b", BOB);
+            connected("session-a", "session-b");
+
+            roomRegistry.expireIdleRooms();
+
+            assertTrue(roomRegistry.isMember(ROOM, ALICE.userId()));
+            assertTrue(roomRegistry.isMember(ROOM, BOB.userId()));
+            assertEquals(2, roomRegistry.participantCount());
+        }
+
+        @Test
+        @DisplayName("Should drop a room whose sessions are all gone")
+        void shouldDropDisconnectedRoom() {
+            roomRegistry.join(ROOM, "session-a", ALICE);
+            roomRegistry.join(ROOM, "session-b", BOB);
+            connected();
+
+            roomRegistry.expireIdleRooms();
+
+            assertEquals(Set.of(), roomRegistry.memberIds(ROOM));
+            assertEquals(List.of(), roomRegistry.leaveAll("session-a"));
+        }
+
+        @Test
+        @DisplayName("Should only remove the sessions that are gone")
+        void shouldRemoveStaleSessions() {
+            roomRegistry.join(ROOM, "session-a", ALICE);
+            roomRegistry.join(ROOM, "session-b", BOB);
+            connected("session-a");
+
+            roomRegistry.expireIdleRooms();
+
+            assertEquals(Set.of(ALICE.userId()), roomRegistry.memberIds(ROOM));
+            assertEquals(List.of(), roomRegistry.leaveAll("session-b"));
+        }
+
+        @Test
+        @DisplayName("Should not check rooms with recent signaling")
+        void shouldSkipActiveRooms() {
+            ReflectionTestUtils.setField(roomRegistry, "roomTtlMinutes", 240L);
+            roomRegistry.join(ROOM, "session-a", ALICE);
+
+            roomRegistry.expireIdleRooms();
+
+            assertTrue(roomRegistry.isMember(ROOM, ALICE.userId()));
+            verifyNoInteractions(simpUserRegistry);
+        }
+    }
+
+    // One connected user per session, as the broker registers them
+    private void connected(String... sessionIds) {
+        Set<SimpUser> users = Arrays.stream(sessionIds)
+            .map(sessionId -> {
+                SimpSession session = mock(SimpSession.class);
+                when(session.getId()).thenReturn(sessionId);
+                SimpUser user = mock(SimpUser.class);
+                when(user.getSessions()).thenReturn(Set.of(session));
+                return user;
+            })
+            .collect(Collectors.toSet());
+        when(simpUserRegistry.getUsers()).thenReturn(users);
+    }
+}
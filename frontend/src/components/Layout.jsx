@@ -3,7 +3,8 @@ import { useState, useEffect, useCallback } from 'react'
 import { useAuth } from '../context/AuthContext'
 import { useTheme } from '../context/ThemeContext'
 import { WebSocketProvider, useWebSocket } from '../context/WebSocketContext'
-import { notificationApi, chatApi } from '../services/api'
+import { notificationApi, chatApi, badgeApi } from '../services/api'
+import { useToast } from './Toast'
 import {
   LayoutDashboard,
   Users,
@@ -55,7 +56,8 @@ function LayoutContent() {
   const [showNotifications, setShowNotifications] = useState(false)
   const [unreadCount, setUnreadCount] = useState(0)
   const [unreadMessagesCount, setUnreadMessagesCount] = useState(0)
-  const { notifications: wsNotifications, messages: wsMessages } = useWebSocket()
+  const { notifications: wsNotifications, messages: wsMessages, lastSync, newBadges, clearNewBadges } = useWebSocket()
+  const toast = useToast()
   
   // Fetch unread count on mount and when showNotifications changes
   const fetchUnreadCount = useCallback(async () => {
@@ -81,6 +83,17 @@ function LayoutContent() {
     }
   }, [wsNotifications])
   
+  // Announce badges as they are awarded, wherever the user is
+  useEffect(() => {
+    if (newBadges.length === 0) return
+    for (const badge of newBadges) {
+      toast.success(`🏆 New Badge: ${badge.emoji} ${badge.name}!`)
+    }
+    badgeApi.markBadgesAsSeen(newBadges.map(badge => badge.id))
+      .catch(error => console.error('Failed to mark badges as seen:', error))
+    clearNewBadges()
+  }, [newBadges, clearNewBadges, toast])
+  
   // Refresh count when notifications dropdown closes (user might have read them)
   useEffect(() => {
     if (!showNotifications) {
@@ -124,6 +137,14 @@ function LayoutContent() {
     }
   }, [wsMessages, location.pathname, fetchUnreadMessagesCount])
   
+  // Counts may have moved while the socket was down
+  useEffect(() => {
+    if (lastSync) {
+      fetchUnreadCount()
+      fetchUnreadMessagesCount()
+    }
+  }, [lastSync, fetchUnreadCount, fetchUnreadMessagesCount])
+  
   // Refresh unread count when navigating to/within chat page
   useEffect(() => {
     if (location.pathname.startsWith('/chat')) {
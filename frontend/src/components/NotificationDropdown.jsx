@@ -46,7 +46,13 @@ export default function NotificationDropdown({ onClose, onRead }) {
 
   const handleMarkAllRead = async () => {
     try {
-      await notificationApi.markAllAsRead()
+      // Only up to the latest change shown, so anything arriving or coalesced meanwhile stays unread
+      if (notifications.length > 0) {
+        const upTo = notifications
+          .map(n => n.updatedAt || n.createdAt)
+          .reduce((latest, time) => (time > latest ? time : latest))
+        await notificationApi.markRead({ upTo })
+      }
       setNotifications(prev => prev.map(n => ({ ...n, read: true })))
       onRead?.()
     } catch (error) {
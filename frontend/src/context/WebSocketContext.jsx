@@ -1,42 +1,59 @@
 import { createContext, useContext, useEffect, useState, useCallback, useRef } from 'react'
 import { Client } from '@stomp/stompjs'
-import SockJS from 'sockjs-client'
 import { useAuth } from './AuthContext'
-import { API_URL } from '../services/api'
+import { createStompSocket, FRAME_ENCODING_HEADERS, parseEventFrame } from '../services/socket'
+import { syncApi } from '../services/api'
 
 const WebSocketContext = createContext(null)
 
-// Construct WebSocket URL from API URL
-// In development: empty API_URL means use relative path (Vite proxy)
-// In production: use full URL from VITE_API_URL
-const getWebSocketUrl = () => {
-  if (!API_URL) {
-    return '/ws' // Local development - Vite proxy handles it
-  }
-  // For production, append /ws to the API URL
-  return `${API_URL}/ws`
-}
-
 export function WebSocketProvider({ children }) {
   const { user } = useAuth()
   const [connected, setConnected] = useState(false)
   const [messages, setMessages] = useState([])
   const [notifications, setNotifications] = useState([])
+  const [newBadges, setNewBadges] = useState([]) // Badges awarded after the request that earned them
   const [typingUsers, setTypingUsers] = useState({})
   const [onlineUsers, setOnlineUsers] = useState(new Set())
   const [deliveryUpdates, setDeliveryUpdates] = useState([]) // For delivery confirmations
+  const [sendErrors, setSendErrors] = useState([]) // Failed WebSocket sends
+  const [lastSync, setLastSync] = useState(null) // Changes missed while disconnected
+  const syncCursorRef = useRef(null)
   const clientRef = useRef(null)
   const subscriptionsRef = useRef({})
 
+  // One incremental pull for everything missed while the socket was down. The first call
+  // only fetches a cursor; each reconnect after that returns messages, receipts and
+  // notifications that changed since, in chunks until the server says there is no more.
+  const pullMissedChanges = useCallback(async () => {
+    const changes = { messages: [], receipts: [], notifications: [] }
+    try {
+      let data
+      do {
+        const response = await syncApi.sync(syncCursorRef.current)
+        data = response.data
+        changes.messages.push(...(data.messages || []))
+        changes.receipts.push(...(data.receipts || []))
+        changes.notifications.push(...(data.notifications || []))
+        syncCursorRef.current = data.cursor
+      } while (data.hasMore)
+    } catch (error) {
+      console.error('Failed to sync missed changes:', error)
+    }
+    if (changes.messages.length > 0 || changes.receipts.length > 0 || changes.notifications.length > 0) {
+      setLastSync(changes)
+    }
+  }, [])
+
   const connect = useCallback(() => {
     if (!user || clientRef.current?.connected) return
+    syncCursorRef.current = null
 
     const token = localStorage.getItem('token')
-    const wsUrl = getWebSocketUrl()
     const client = new Client({
-      webSocketFactory: () => new SockJS(wsUrl),
+      webSocketFactory: createStompSocket,
       connectHeaders: {
         Authorization: `Bearer ${token}`,
+        ...FRAME_ENCODING_HEADERS,
       },
       debug: (str) => {
         if (import.meta.env.DEV) console.log('STOMP:', str)
@@ -57,23 +74,21 @@ export function WebSocketProvider({ children }) {
       
       // Subscribe to typing indicators
       client.subscribe(`/user/${user.id}/queue/typing`, (message) => {
-        const data = JSON.parse(message.body)
+        const data = parseEventFrame('typing', message)
         setTypingUsers(prev => ({
           ...prev,
           [data.conversationId]: data.isTyping ? data.userId : null,
         }))
       })
       
-      // Subscribe to presence updates
-      client.subscribe('/topic/presence', (message) => {
-        const data = JSON.parse(message.body)
+      // Subscribe to presence updates for our matches and conversation partners
+      client.subscribe(`/user/${user.id}/queue/presence`, (message) => {
+        // Diff frame: { online: [userIds], offline: [userIds] }
+        const data = parseEventFrame('presence', message)
         setOnlineUsers(prev => {
           const next = new Set(prev)
-          if (data.online) {
-            next.add(data.userId)
-          } else {
-            next.delete(data.userId)
-          }
+          data.online?.forEach(id => next.add(id))
+          data.offline?.forEach(id => next.delete(id))
           return next
         })
       })
@@ -84,12 +99,26 @@ export function WebSocketProvider({ children }) {
         setNotifications(prev => [data, ...prev])
       })
       
+      // Subscribe to badge awards (evaluated in the background after an activity is logged)
+      client.subscribe(`/user/${user.id}/queue/badges`, (message) => {
+        const data = JSON.parse(message.body)
+        setNewBadges(prev => [...prev, ...data])
+      })
+      
       // Subscribe to delivery confirmations
       client.subscribe(`/user/${user.id}/queue/delivery`, (message) => {
-        const data = JSON.parse(message.body)
+        const data = parseEventFrame('delivery', message)
         setDeliveryUpdates(prev => [...prev, data])
       })
       
+      // Subscribe to errors for messages sent over the socket
+      client.subscribe(`/user/${user.id}/queue/errors`, (message) => {
+        const data = JSON.parse(message.body)
+        setSendErrors(prev => [...prev, data])
+      })
+      
+      pullMissedChanges()
+      
       // Notify server we're online
       client.publish({
         destination: '/app/presence',
@@ -117,7 +146,7 @@ export function WebSocketProvider({ children }) {
       }
       client.deactivate()
     }
-  }, [user])
+  }, [user, pullMissedChanges])
 
   useEffect(() => {
     const cleanup = connect()
@@ -170,6 +199,10 @@ export function WebSocketProvider({ children }) {
     setNotifications([])
   }, [])
 
+  const clearNewBadges = useCallback(() => {
+    setNewBadges([])
+  }, [])
+
   // Seed online users from API data (used when loading conversations)
   const setOnlineUsersFromAPI = useCallback((userIds) => {
     setOnlineUsers(prev => {
@@ -187,14 +220,18 @@ export function WebSocketProvider({ children }) {
     connected,
     messages,
     notifications,
+    newBadges,
     typingUsers,
     onlineUsers,
     deliveryUpdates,
+    sendErrors,
+    lastSync,
     sendMessage,
     sendTyping,
     subscribeToConversation,
     clearMessages,
     clearNotifications,
+    clearNewBadges,
     clearDeliveryUpdates,
     setOnlineUsersFromAPI,
   }
@@ -98,17 +98,9 @@ export default function Activity() {
         payload.endTime = logData.endTime
       }
       
+      // New badges are announced by the layout when the server pushes them
       await activityApi.logActivity(payload)
       
-      // Check for new badges
-      const unseenRes = await badgeApi.getUnseenBadges()
-      if (unseenRes.data && unseenRes.data.length > 0) {
-        for (const badge of unseenRes.data) {
-          toast.success(`🏆 New Badge: ${badge.emoji} ${badge.name}!`)
-        }
-        await badgeApi.markBadgesAsSeen()
-      }
-      
       setShowLogModal(false)
       setLogData({
         activityDate: dayjs().format('YYYY-MM-DD'),
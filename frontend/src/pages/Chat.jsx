@@ -24,10 +24,20 @@ import {
 } from 'lucide-react'
 import dayjs from 'dayjs'
 
+// Matches the server's page size for GET /messages?afterSeq=
+const MESSAGE_SYNC_BATCH_SIZE = 200
+
+// Merge messages by id and keep them in per-conversation sequence order
+const mergeMessages = (existing, incoming) => {
+  const byId = new Map(existing.map(m => [m.id, m]))
+  incoming.forEach(m => byId.set(m.id, m))
+  return [...byId.values()].sort((a, b) => (a.seq ?? 0) - (b.seq ?? 0))
+}
+
 export default function Chat() {
   const { conversationId } = useParams()
   const { user } = useAuth()
-  const { connected, sendMessage, sendTyping, typingUsers, onlineUsers, deliveryUpdates, subscribeToConversation, setOnlineUsersFromAPI } = useWebSocket()
+  const { connected, sendMessage, sendTyping, typingUsers, onlineUsers, deliveryUpdates, sendErrors, lastSync, subscribeToConversation, setOnlineUsersFromAPI } = useWebSocket()
   const navigate = useNavigate()
   const toast = useToast()
   
@@ -47,6 +57,7 @@ export default function Chat() {
   const messagesEndRef = useRef(null)
   const typingTimeoutRef = useRef(null)
   const menuRef = useRef(null)
+  const lastSeqRef = useRef(0)
   
   const isAdmin = user?.role === 'ADMIN'
 
@@ -67,6 +78,7 @@ export default function Chat() {
 
   useEffect(() => {
     if (conversationId) {
+      lastSeqRef.current = 0
       loadMessages(conversationId)
     }
   }, [conversationId])
@@ -76,13 +88,14 @@ export default function Chat() {
     if (!conversationId || !connected) return
     
     const unsubscribe = subscribeToConversation(conversationId, (newMessage) => {
-      // Only add if not from current user (we already added it optimistically)
+      // Our own messages arrive here too when they were sent over the socket
+      if (lastSeqRef.current > 0 && newMessage.seq > lastSeqRef.current + 1) {
+        // Sequence gap: some messages never reached us, resync from the last one we have
+        syncMissedMessages(conversationId)
+      } else {
+        setMessages(prev => mergeMessages(prev, [newMessage]))
+      }
       if (newMessage.senderId !== user?.id) {
-        setMessages(prev => {
-          // Avoid duplicates
-          if (prev.some(m => m.id === newMessage.id)) return prev
-          return [...prev, newMessage]
-        })
         // Mark as read immediately since user is viewing this conversation
         chatApi.markAsRead(conversationId).catch(err => 
           console.error('Failed to mark as read:', err)
@@ -94,16 +107,50 @@ export default function Chat() {
   }, [conversationId, connected, subscribeToConversation, user?.id])
 
   useEffect(() => {
+    lastSeqRef.current = messages.reduce((max, m) => Math.max(max, m.seq || 0), 0)
     scrollToBottom()
   }, [messages])
 
+  // Apply what the reconnect sync found missing: new messages, and receipt watermarks
+  // that moved for our own messages
+  useEffect(() => {
+    if (!lastSync) return
+
+    if (lastSync.messages.length > 0 || lastSync.receipts.length > 0) {
+      loadConversations()
+    }
+    if (!conversationId) return
+
+    const missed = lastSync.messages.filter(m => m.conversationId === conversationId)
+    if (missed.length > 0) {
+      setMessages(prev => mergeMessages(prev, missed))
+      if (missed.some(m => m.senderId !== user?.id)) {
+        chatApi.markAsRead(conversationId).catch(() => {})
+      }
+    }
+
+    const receipts = lastSync.receipts.filter(r => r.conversationId === conversationId && r.userId !== user?.id)
+    if (receipts.length > 0) {
+      setMessages(prev => prev.map(msg => {
+        if (msg.senderId !== user?.id || msg.status === 'READ') return msg
+        const read = receipts.find(r => r.readSeq >= msg.seq)
+        if (read) return { ...msg, status: 'READ', isRead: true, readAt: read.readAt }
+        const delivered = receipts.find(r => r.deliveredSeq >= msg.seq)
+        if (delivered && msg.status !== 'DELIVERED') return { ...msg, status: 'DELIVERED', deliveredAt: delivered.deliveredAt }
+        return msg
+      }))
+    }
+  }, [lastSync])
+
   // Handle delivery status updates from WebSocket
   useEffect(() => {
     if (deliveryUpdates.length > 0) {
       const latestUpdate = deliveryUpdates[deliveryUpdates.length - 1]
       if (latestUpdate.conversationId === conversationId) {
-        setMessages(prev => prev.map(msg => 
-          msg.id === latestUpdate.messageId 
+        // One receipt covers every message delivered in the batch
+        const deliveredIds = new Set(latestUpdate.messageIds || [latestUpdate.messageId])
+        setMessages(prev => prev.map(msg =>
+          deliveredIds.has(msg.id) && msg.status !== 'READ'
             ? { ...msg, status: latestUpdate.status, deliveredAt: latestUpdate.deliveredAt }
             : msg
         ))
@@ -111,6 +158,13 @@ export default function Chat() {
     }
   }, [deliveryUpdates, conversationId])
 
+  // Surface messages the server rejected when they were sent over the socket
+  useEffect(() => {
+    if (sendErrors.length > 0) {
+      toast.error(sendErrors[sendErrors.length - 1].error || 'Failed to send message')
+    }
+  }, [sendErrors])
+
   const loadConversations = async () => {
     try {
       const response = await chatApi.getConversations()
@@ -151,6 +205,23 @@ export default function Chat() {
     }
   }
 
+  const syncMissedMessages = async (convId) => {
+    try {
+      let afterSeq = lastSeqRef.current
+      let batch
+      do {
+        const response = await chatApi.getMessagesAfter(convId, afterSeq)
+        batch = response.data || []
+        if (batch.length > 0) {
+          afterSeq = batch[batch.length - 1].seq
+          setMessages(prev => mergeMessages(prev, batch))
+        }
+      } while (batch.length >= MESSAGE_SYNC_BATCH_SIZE)
+    } catch (error) {
+      console.error('Failed to sync messages:', error)
+    }
+  }
+
   const loadAllUsers = async () => {
     if (!isAdmin) return
     setLoadingUsers(true)
@@ -210,15 +281,11 @@ export default function Chat() {
     setNewMessage('') // Clear immediately for better UX
     
     try {
-      // Always save via HTTP API to ensure persistence
-      const response = await chatApi.sendMessage(conversationId, messageContent)
-      
-      // Add the saved message to local state
-      setMessages(prev => [...prev, response.data])
-      
-      // Also try WebSocket for real-time delivery to other users
-      if (connected) {
-        sendMessage(conversationId, messageContent)
+      // Prefer the open socket: the server persists the message and echoes it back on the
+      // conversation topic. Fall back to HTTP when the socket is down.
+      if (!connected || !sendMessage(conversationId, messageContent)) {
+        const response = await chatApi.sendMessage(conversationId, messageContent)
+        setMessages(prev => mergeMessages(prev, [response.data]))
       }
     } catch (error) {
       console.error('Failed to send message:', error)
@@ -67,7 +67,7 @@ export default function Dashboard() {
 
   const handleDismissBadges = async () => {
     try {
-      await badgeApi.markBadgesAsSeen()
+      await badgeApi.markBadgesAsSeen(unseenBadges.map(badge => badge.id))
       setUnseenBadges([])
     } catch (error) {
       console.error('Failed to dismiss badges:', error)
@@ -17,6 +17,10 @@ import {
   Zap,
   Target,
 } from 'lucide-react'
+import dayjs from 'dayjs'
+import relativeTime from 'dayjs/plugin/relativeTime'
+
+dayjs.extend(relativeTime)
 
 const LeaderboardCard = ({ title, icon: Icon, iconGradient, entries, emptyMessage, currentUserId }) => {
   const getRankIcon = (rank) => {
@@ -117,6 +121,7 @@ export default function Leaderboard() {
   const [leaderboard, setLeaderboard] = useState(null)
   const [loading, setLoading] = useState(true)
   const [activeTab, setActiveTab] = useState('all')
+  const [streakRank, setStreakRank] = useState(null)
 
   useEffect(() => {
     loadLeaderboard()
@@ -126,6 +131,9 @@ export default function Leaderboard() {
     try {
       const response = await leaderboardApi.getLeaderboard()
       setLeaderboard(response.data)
+      // Live rank, so it can differ from the snapshot until its next refresh
+      const rankResponse = await leaderboardApi.getRank('STREAK', 0)
+      setStreakRank(rankResponse.data)
     } catch (error) {
       console.error('Failed to load leaderboard:', error)
     } finally {
@@ -213,6 +221,12 @@ export default function Leaderboard() {
         <p className="text-slate-500 dark:text-slate-400 max-w-md mx-auto">
           See how you stack up against other learners. Keep pushing to climb the ranks!
         </p>
+        {leaderboard?.computedAt && (
+          <p className="text-xs text-slate-400 mt-2">
+            Updated {dayjs(leaderboard.computedAt).fromNow()}
+            {leaderboard.refreshIntervalMs && ` · refreshes every ${Math.round(leaderboard.refreshIntervalMs / 60000)} min`}
+          </p>
+        )}
       </div>
 
       {/* Motivational Banner */}
@@ -246,6 +260,15 @@ export default function Leaderboard() {
               </div>
               <p className="text-xs text-white/70">Top Hours</p>
             </div>
+            {streakRank?.rank && (
+              <div className="text-center">
+                <div className="flex items-center gap-2 text-2xl font-bold">
+                  <Trophy className="w-6 h-6 text-amber-300" />
+                  #{streakRank.rank}
+                </div>
+                <p className="text-xs text-white/70">Your Streak Rank of {streakRank.totalRanked}</p>
+              </div>
+            )}
           </div>
         </div>
       </div>
@@ -3,7 +3,7 @@ import { useParams, useNavigate } from 'react-router-dom'
 import { useAuth } from '../context/AuthContext'
 import { chatApi } from '../services/api'
 import { Client } from '@stomp/stompjs'
-import SockJS from 'sockjs-client'
+import { createStompSocket, FRAME_ENCODING_HEADERS } from '../services/socket'
 import {
   Mic,
   MicOff,
@@ -15,6 +15,9 @@ import {
   Minimize,
 } from 'lucide-react'
 
+// Candidates gathered within this window go to the peer in a single frame
+const ICE_BATCH_DELAY_MS = 50
+
 export default function VideoCall() {
   const { roomId } = useParams()
   const { user } = useAuth()
@@ -35,6 +38,9 @@ export default function VideoCall() {
   const stompClientRef = useRef(null)
   const cleanupCalledRef = useRef(false)
   const timerRef = useRef(null)
+  const peerIdRef = useRef(null) // Signaling is addressed to this user
+  const pendingCandidatesRef = useRef([])
+  const iceFlushTimerRef = useRef(null)
 
   // Cleanup function - stops all media and connections
   const cleanup = useCallback(() => {
@@ -48,6 +54,11 @@ export default function VideoCall() {
       clearInterval(timerRef.current)
       timerRef.current = null
     }
+    if (iceFlushTimerRef.current) {
+      clearTimeout(iceFlushTimerRef.current)
+      iceFlushTimerRef.current = null
+    }
+    pendingCandidatesRef.current = []
     
     // Clear video elements FIRST to release references
     if (localVideoRef.current) {
@@ -107,6 +118,24 @@ export default function VideoCall() {
     navigate('/chat/' + roomId)
   }, [roomId, callDuration, cleanup, navigate])
 
+  const publishSignal = useCallback((kind, body) => {
+    if (!stompClientRef.current?.connected || !peerIdRef.current) return false
+    stompClientRef.current.publish({
+      destination: `/app/video.${kind}/${roomId}`,
+      body: JSON.stringify({ ...body, targetUserId: peerIdRef.current })
+    })
+    return true
+  }, [roomId])
+
+  const flushIceCandidates = useCallback(() => {
+    iceFlushTimerRef.current = null
+    if (pendingCandidatesRef.current.length === 0) return
+    // Keep candidates until we know who the peer is
+    if (publishSignal('ice', { candidates: pendingCandidatesRef.current })) {
+      pendingCandidatesRef.current = []
+    }
+  }, [publishSignal])
+
   const setupPeerConnection = useCallback((stream) => {
     const configuration = {
       iceServers: [
@@ -132,11 +161,11 @@ export default function VideoCall() {
     }
 
     pc.onicecandidate = (event) => {
-      if (event.candidate && stompClientRef.current?.connected) {
-        stompClientRef.current.publish({
-          destination: `/app/video.ice/${roomId}`,
-          body: JSON.stringify({ candidate: event.candidate })
-        })
+      if (event.candidate) {
+        pendingCandidatesRef.current.push(event.candidate)
+        if (!iceFlushTimerRef.current) {
+          iceFlushTimerRef.current = setTimeout(flushIceCandidates, ICE_BATCH_DELAY_MS)
+        }
       }
     }
 
@@ -163,7 +192,7 @@ export default function VideoCall() {
     }
 
     return pc
-  }, [roomId])
+  }, [flushIceCandidates])
 
   const startCall = useCallback(async () => {
     if (cleanupCalledRef.current) return
@@ -198,9 +227,11 @@ export default function VideoCall() {
 
       const token = localStorage.getItem('token')
       const client = new Client({
-        webSocketFactory: () => new SockJS('/ws'),
+        webSocketFactory: createStompSocket,
         connectHeaders: {
           Authorization: `Bearer ${token}`,
+          // Declared here too: the server only sends compact frames if every session of the user accepts them
+          ...FRAME_ENCODING_HEADERS,
         },
         debug: () => {},
         reconnectDelay: 5000,
@@ -212,64 +243,56 @@ export default function VideoCall() {
         console.log('STOMP connected for video')
         setConnectionStatus('Waiting for peer to join...')
         
-        client.subscribe(`/topic/video/${roomId}`, async (message) => {
+        // Signaling is addressed to us by the server, so no filtering out our own frames
+        client.subscribe(`/user/${user.id}/queue/video`, async (message) => {
           if (cleanupCalledRef.current) return
           
           const data = JSON.parse(message.body)
-          const myId = user?.id?.toString()
+          if (data.roomId && data.roomId !== roomId) return
 
           switch (data.type) {
             case 'user-joined':
-              if (data.userId !== myId) {
-                console.log('Peer joined:', data.displayName)
-                setPeerName(data.displayName || 'Peer')
-                setConnectionStatus('Connecting to ' + (data.displayName || 'peer') + '...')
-                
-                try {
-                  const offer = await pc.createOffer()
-                  await pc.setLocalDescription(offer)
-                  client.publish({
-                    destination: `/app/video.offer/${roomId}`,
-                    body: JSON.stringify({ offer })
-                  })
-                } catch (err) {
-                  console.error('Error creating offer:', err)
-                }
+              console.log('Peer joined:', data.displayName)
+              peerIdRef.current = data.userId
+              setPeerName(data.displayName || 'Peer')
+              setConnectionStatus('Connecting to ' + (data.displayName || 'peer') + '...')
+              
+              try {
+                const offer = await pc.createOffer()
+                await pc.setLocalDescription(offer)
+                publishSignal('offer', { offer })
+              } catch (err) {
+                console.error('Error creating offer:', err)
               }
               break
 
             case 'offer':
-              if (data.userId !== myId) {
-                console.log('Received offer')
-                try {
-                  await pc.setRemoteDescription(new RTCSessionDescription(data.offer))
-                  const answer = await pc.createAnswer()
-                  await pc.setLocalDescription(answer)
-                  client.publish({
-                    destination: `/app/video.answer/${roomId}`,
-                    body: JSON.stringify({ answer })
-                  })
-                } catch (err) {
-                  console.error('Error handling offer:', err)
-                }
+              console.log('Received offer')
+              peerIdRef.current = data.userId
+              try {
+                await pc.setRemoteDescription(new RTCSessionDescription(data.offer))
+                const answer = await pc.createAnswer()
+                await pc.setLocalDescription(answer)
+                publishSignal('answer', { answer })
+                flushIceCandidates()
+              } catch (err) {
+                console.error('Error handling offer:', err)
               }
               break
 
             case 'answer':
-              if (data.userId !== myId) {
-                console.log('Received answer')
-                try {
-                  await pc.setRemoteDescription(new RTCSessionDescription(data.answer))
-                } catch (err) {
-                  console.error('Error handling answer:', err)
-                }
+              console.log('Received answer')
+              try {
+                await pc.setRemoteDescription(new RTCSessionDescription(data.answer))
+              } catch (err) {
+                console.error('Error handling answer:', err)
               }
               break
 
-            case 'ice-candidate':
-              if (data.userId !== myId && data.candidate) {
+            case 'ice-candidates':
+              for (const candidate of data.candidates || []) {
                 try {
-                  await pc.addIceCandidate(new RTCIceCandidate(data.candidate))
+                  await pc.addIceCandidate(new RTCIceCandidate(candidate))
                 } catch (err) {
                   console.error('Error adding ICE candidate:', err)
                 }
@@ -277,15 +300,17 @@ export default function VideoCall() {
               break
 
             case 'user-left':
-              if (data.userId !== myId) {
-                console.log('Peer left the call')
-                setIsConnected(false)
-                setConnectionStatus('Peer left the call')
-                if (remoteVideoRef.current) {
-                  remoteVideoRef.current.srcObject = null
-                }
+              console.log('Peer left the call')
+              setIsConnected(false)
+              setConnectionStatus('Peer left the call')
+              if (remoteVideoRef.current) {
+                remoteVideoRef.current.srcObject = null
               }
               break
+
+            case 'error':
+              console.warn('Signaling error:', data.error)
+              break
           }
         })
 
@@ -313,7 +338,7 @@ export default function VideoCall() {
         setConnectionStatus('Failed to start call: ' + error.message)
       }
     }
-  }, [roomId, setupPeerConnection, user?.id])
+  }, [roomId, setupPeerConnection, publishSignal, flushIceCandidates, user?.id])
 
   useEffect(() => {
     cleanupCalledRef.current = false
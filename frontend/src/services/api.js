@@ -104,6 +104,8 @@ export const chatApi = {
   getConversations: () => api.get('/api/conversations'),
   getMessages: (conversationId, page = 0) => 
     api.get(`/api/conversations/${conversationId}/messages`, { params: { page } }),
+  getMessagesAfter: (conversationId, afterSeq) =>
+    api.get(`/api/conversations/${conversationId}/messages`, { params: { afterSeq } }),
   sendMessage: (conversationId, content) =>
     api.post(`/api/conversations/${conversationId}/messages`, { content }),
   markAsRead: (conversationId) => 
@@ -148,7 +150,9 @@ export const badgeApi = {
   getBadges: () => api.get('/api/badges'),
   getEarnedBadges: () => api.get('/api/badges/earned'),
   getUnseenBadges: () => api.get('/api/badges/unseen'),
-  markBadgesAsSeen: () => api.post('/api/badges/mark-seen'),
+  // Pass the ids that were shown so badges awarded since then stay unseen
+  markBadgesAsSeen: (badgeIds) =>
+    api.post('/api/badges/mark-seen', badgeIds ? { badgeIds } : undefined),
   getUserBadges: (userId) => api.get(`/api/badges/user/${userId}`),
 }
 
@@ -157,9 +161,15 @@ export const notificationApi = {
     api.get('/api/notifications', { params: { page } }),
   markAsRead: (id) => api.post(`/api/notifications/${id}/read`),
   markAllAsRead: () => api.post('/api/notifications/read-all'),
+  markRead: ({ ids, upTo }) => api.post('/api/notifications/read', { ids, upTo }),
   getUnreadCount: () => api.get('/api/notifications/unread-count'),
 }
 
+export const syncApi = {
+  // Omit the cursor on the first call, then pass back the one each response returns
+  sync: (cursor) => api.post('/api/sync', cursor ? { cursor } : {}),
+}
+
 export const adminApi = {
   // Profile options management
   getProfileOptions: () => api.get('/api/admin/profile-options'),
@@ -173,6 +183,7 @@ export const adminApi = {
 
 export const leaderboardApi = {
   getLeaderboard: () => api.get('/api/leaderboard'),
+  getRank: (category, neighbors = 2) => api.get('/api/leaderboard/rank', { params: { category, neighbors } }),
 }
 
 export const bugReportApi = {
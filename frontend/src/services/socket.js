@@ -0,0 +1,72 @@
+import SockJS from 'sockjs-client'
+import { API_URL } from './api'
+
+// Set once a native WebSocket fails to open (proxy or network without upgrade support),
+// so later reconnects go straight to SockJS for the rest of the page's lifetime
+let nativeUnavailable = typeof WebSocket === 'undefined'
+
+// In development: empty API_URL means use relative path (Vite proxy)
+// In production: use full URL from VITE_API_URL
+const getSockJsUrl = () => (API_URL ? `${API_URL}/ws` : '/ws')
+
+const getNativeUrl = () => {
+  if (API_URL) {
+    return `${API_URL.replace(/^http/, 'ws')}/ws-native`
+  }
+  const protocol = window.location.protocol === 'https:' ? 'wss' : 'ws'
+  return `${protocol}://${window.location.host}/ws-native`
+}
+
+/**
+ * Socket factory for STOMP clients: a plain WebSocket (with permessage-deflate where the
+ * browser supports it), falling back to SockJS transports when that cannot connect.
+ * Called by the STOMP client on every (re)connect attempt.
+ */
+export function createStompSocket() {
+  if (nativeUnavailable) {
+    return new SockJS(getSockJsUrl())
+  }
+
+  const socket = new WebSocket(getNativeUrl())
+  let opened = false
+  socket.addEventListener('open', () => {
+    opened = true
+  })
+  socket.addEventListener('close', () => {
+    if (!opened) {
+      nativeUnavailable = true
+    }
+  })
+  return socket
+}
+
+// Sent with CONNECT: lets the server use short-key frames for typing, delivery and presence events
+export const FRAME_ENCODING_HEADERS = { 'x-frame-encoding': 'compact' }
+
+// Compact frames carry UUIDs as 22-character base64url strings
+const decodeId = (value) => {
+  const bytes = atob(value.replace(/-/g, '+').replace(/_/g, '/'))
+  const hex = Array.from(bytes, (c) => c.charCodeAt(0).toString(16).padStart(2, '0')).join('')
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`
+}
+
+// Compact bodies are recognised by keys the verbose form never uses
+const expandCompactFrame = {
+  typing: (d) => ({ conversationId: decodeId(d.c), userId: decodeId(d.u), isTyping: d.t === 1 }),
+  delivery: (d) => ({
+    conversationId: decodeId(d.c),
+    messageIds: d.m.map(decodeId),
+    status: 'DELIVERED',
+    deliveredAt: new Date(d.at).toISOString(),
+    deliveredUpToSeq: d.s,
+  }),
+  presence: (d) => ({ online: (d.on || []).map(decodeId), offline: (d.off || []).map(decodeId) }),
+}
+
+/**
+ * Parses a typing/delivery/presence frame into its verbose shape, whichever form the server sent.
+ */
+export function parseEventFrame(kind, message) {
+  const data = JSON.parse(message.body)
+  return 'c' in data || 'on' in data ? expandCompactFrame[kind](data) : data
+}
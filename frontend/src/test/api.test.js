@@ -295,6 +295,11 @@ describe('API Service', () => {
       expect(typeof notificationApi.markAllAsRead).toBe('function')
     })
 
+    it('has markRead method', () => {
+      expect(notificationApi.markRead).toBeDefined()
+      expect(typeof notificationApi.markRead).toBe('function')
+    })
+
     it('has getUnreadCount method', () => {
       expect(notificationApi.getUnreadCount).toBeDefined()
       expect(typeof notificationApi.getUnreadCount).toBe('function')
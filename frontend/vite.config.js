@@ -10,6 +10,7 @@ export default defineConfig({
         target: 'http://localhost:8080',
         changeOrigin: true,
       },
+      // Also covers /ws-native (prefix match)
       '/ws': {
         target: 'http://localhost:8080',
         ws: true,